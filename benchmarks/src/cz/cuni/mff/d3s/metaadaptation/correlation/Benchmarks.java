@@ -0,0 +1,28 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs the benchmarks with the GC profiler, so the allocation rate is reported
+ * along with the throughput and the latency. Accepts the same arguments as the JMH
+ * command line, e.g. the regular expression of the benchmarks to run or the parameters
+ * to run them with: {@code java -jar benchmarks.jar PipelineStages -p componentCount=50}.
+ * The GC profiler is not added if any profiler is given by the arguments.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class Benchmarks {
+
+	public static void main(String[] args) throws Exception {
+		List<String> arguments = new ArrayList<>(Arrays.asList(args));
+		if(!arguments.contains("-prof")){
+			arguments.add("-prof");
+			arguments.add("gc");
+		}
+		Main.main(arguments.toArray(new String[arguments.size()]));
+	}
+}
@@ -0,0 +1,145 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the phases of the MAPE loop of the {@link CorrelationManager} over
+ * a {@link SyntheticSystem} with the histories filled up to the given length.
+ * Each invocation of the {@link #monitor(SampledSystem)}, {@link #plan(MonitoredSystem)}
+ * and {@link #execute(PlannedSystem)} works on a new sample of the system, so the planning
+ * is never skipped for unchanged data and the execution has new boundaries to deploy.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CorrelationManagerBenchmark {
+
+	/**
+	 * The system together with the manager that adapts it.
+	 */
+	@State(Scope.Thread)
+	public static class AdaptedSystem {
+
+		/**
+		 * The count of the components in the system.
+		 */
+		@Param({"10", "50"})
+		public int componentCount;
+
+		/**
+		 * The count of the knowledge fields of each component.
+		 */
+		@Param({"3", "6"})
+		public int labelCount;
+
+		/**
+		 * The count of the values held in the history of each knowledge field.
+		 */
+		@Param({"100", "1000"})
+		public int historyLength;
+
+		/**
+		 * The maximal delay of a sample after the beginning of its time slot in milliseconds.
+		 */
+		@Param({"0", "500"})
+		public int jitter;
+
+		/**
+		 * The system the manager adapts.
+		 */
+		SyntheticSystem system;
+
+		/**
+		 * The benchmarked manager.
+		 */
+		CorrelationManager manager;
+
+		/**
+		 * Fill the histories of the manager and plan the boundaries once with the first
+		 * knowledge field of the first component failed, so the execution has the failure
+		 * to handle.
+		 */
+		@Setup(Level.Trial)
+		public void setUp(){
+			system = new SyntheticSystem(componentCount, labelCount, jitter, 42);
+			manager = new CorrelationManager(system, system, SyntheticSystem.createMetadata(labelCount));
+			manager.setHistoryCapacity(historyLength);
+			for(int i = 0; i < historyLength; i++){
+				system.step();
+				manager.monitor();
+			}
+			system.fail(SyntheticSystem.getLabel(0));
+			manager.analyze();
+			manager.plan();
+		}
+	}
+
+	/**
+	 * The system with a new sample taken before each invocation.
+	 */
+	public static class SampledSystem extends AdaptedSystem {
+
+		@Setup(Level.Invocation)
+		public void sample(){
+			system.step();
+		}
+	}
+
+	/**
+	 * The system with a new sample taken and monitored before each invocation.
+	 */
+	public static class MonitoredSystem extends AdaptedSystem {
+
+		@Setup(Level.Invocation)
+		public void sample(){
+			system.step();
+			manager.monitor();
+		}
+	}
+
+	/**
+	 * The system with a new sample taken, monitored and planned before each invocation.
+	 */
+	public static class PlannedSystem extends AdaptedSystem {
+
+		@Setup(Level.Invocation)
+		public void sample(){
+			system.step();
+			manager.monitor();
+			manager.analyze();
+			manager.plan();
+		}
+	}
+
+	@Benchmark
+	public void monitor(SampledSystem state){
+		state.manager.monitor();
+	}
+
+	@Benchmark
+	public void plan(MonitoredSystem state){
+		state.manager.plan();
+	}
+
+	@Benchmark
+	public void execute(PlannedSystem state){
+		state.manager.execute();
+	}
+}
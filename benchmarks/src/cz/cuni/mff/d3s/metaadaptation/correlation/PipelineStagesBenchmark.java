@@ -0,0 +1,136 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the inner stages of the planning of the {@link CorrelationManager} for
+ * the pair of the first two knowledge fields of a {@link SyntheticSystem}: the alignment
+ * of the histories of two components, the distances among all the components and
+ * the search of the boundary in the distances.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineStagesBenchmark {
+
+	/**
+	 * The count of the components in the system.
+	 */
+	@Param({"10", "50"})
+	public int componentCount;
+
+	/**
+	 * The count of the knowledge fields of each component.
+	 */
+	@Param({"3", "6"})
+	public int labelCount;
+
+	/**
+	 * The count of the values held in the history of each knowledge field.
+	 */
+	@Param({"100", "1000"})
+	public int historyLength;
+
+	/**
+	 * The maximal delay of a sample after the beginning of its time slot in milliseconds.
+	 */
+	@Param({"0", "500"})
+	public int jitter;
+
+	/**
+	 * The benchmarked manager.
+	 */
+	private CorrelationManager manager;
+
+	/**
+	 * The histories of the manager to be planned on.
+	 */
+	private KnowledgeHistoryStore history;
+
+	/**
+	 * The key of the benchmarked label pair.
+	 */
+	private long labels;
+
+	/**
+	 * The key of the pair of the first two components.
+	 */
+	private long components;
+
+	/**
+	 * The distances of the benchmarked label pair in the order they are computed.
+	 */
+	private List<DistancePair> distances;
+
+	/**
+	 * The copy of the {@link #distances} sorted in place by the boundary search.
+	 */
+	private List<DistancePair> searchedDistances;
+
+	/**
+	 * Fill the histories of the manager.
+	 */
+	@Setup(Level.Trial)
+	public void setUp(){
+		// The benchmarked stages need two components and two labels at least
+		int fieldCount = Math.max(2, labelCount);
+		SyntheticSystem system = new SyntheticSystem(Math.max(2, componentCount), fieldCount, jitter, 42);
+		manager = new CorrelationManager(system, system, SyntheticSystem.createMetadata(fieldCount));
+		manager.setHistoryCapacity(historyLength);
+		for(int i = 0; i < historyLength; i++){
+			system.step();
+			manager.monitor();
+		}
+
+		history = manager.createHistoryStore();
+		KnowledgeRegistry registry = history.getRegistry();
+		labels = KnowledgeRegistry.pairKey(registry.getLabelId(SyntheticSystem.getLabel(0)),
+				registry.getLabelId(SyntheticSystem.getLabel(1)));
+		int[] holders = history.getComponents(labels);
+		components = KnowledgeRegistry.pairKey(holders[0], holders[1]);
+		distances = manager.computeDistances(history, labels);
+	}
+
+	/**
+	 * Restore the order of the distances before each invocation of the {@link #getDistanceBoundary()}.
+	 */
+	@Setup(Level.Invocation)
+	public void copyDistances(){
+		searchedDistances = new ArrayList<>(distances);
+	}
+
+	@Benchmark
+	public List<KnowledgeQuadruple> extractKnowledgeHistory(){
+		return manager.extractKnowledgeHistory(history, components, labels, Long.MIN_VALUE);
+	}
+
+	@Benchmark
+	public List<DistancePair> computeDistances(){
+		return manager.computeDistances(history, labels);
+	}
+
+	@Benchmark
+	public double getDistanceBoundary(){
+		return manager.getDistanceBoundary(searchedDistances, labels);
+	}
+}
@@ -0,0 +1,215 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import cz.cuni.mff.d3s.metaadaptation.correlation.metric.DifferenceMetric;
+
+/**
+ * A synthetic system of components the benchmarks are run on. Each component holds
+ * the numeric knowledge fields "label0" to "labelN". The values of all the fields of
+ * a component follow the same position of the component along with a gaussian noise,
+ * so the fields are correlated among the components. A sample of every field is taken
+ * once per {@link CorrelationManager#DEFAULT_TIME_SLOT_DURATION} and delayed by a random
+ * jitter. The system is deterministic for the given seed.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class SyntheticSystem implements ComponentManager, ConnectorManager {
+
+	/**
+	 * The prefix of the labels of the knowledge fields.
+	 */
+	public static final String LABEL_PREFIX = "label";
+
+	/**
+	 * The components of the system.
+	 */
+	private final Set<SyntheticComponent> components;
+	/**
+	 * The connectors deployed to the system.
+	 */
+	private final Set<SyntheticConnector> connectors;
+	/**
+	 * The count of the knowledge fields of each component.
+	 */
+	private final int labelCount;
+	/**
+	 * The maximal delay of a sample after the beginning of its time slot in milliseconds.
+	 */
+	private final int jitter;
+	/**
+	 * The source of the noise and the jitter.
+	 */
+	private final Random random;
+	/**
+	 * The count of the samples taken so far.
+	 */
+	private long step;
+
+	/**
+	 * Create a new instance of {@link SyntheticSystem}.
+	 * @param componentCount The count of the components.
+	 * @param labelCount The count of the knowledge fields of each component.
+	 * @param jitter The maximal delay of a sample after the beginning of its time slot in milliseconds.
+	 * @param seed The seed of the noise and the jitter.
+	 */
+	public SyntheticSystem(int componentCount, int labelCount, int jitter, long seed){
+		if(componentCount < 1){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "componentCount"));
+		}
+		if(labelCount < 1){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "labelCount"));
+		}
+		if(jitter < 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is negative.", "jitter"));
+		}
+
+		this.labelCount = labelCount;
+		this.jitter = jitter;
+		random = new Random(seed);
+		components = new LinkedHashSet<>();
+		for(int i = 0; i < componentCount; i++){
+			components.add(new SyntheticComponent(i));
+		}
+		connectors = new HashSet<>();
+		step = 0;
+	}
+
+	/**
+	 * Returns the label of the knowledge field at the given position.
+	 * @param index The position of the knowledge field.
+	 * @return The label of the knowledge field.
+	 */
+	public static String getLabel(int index){
+		return LABEL_PREFIX + index;
+	}
+
+	/**
+	 * Creates the metadata of the knowledge fields of the system.
+	 * @param labelCount The count of the knowledge fields of each component.
+	 * @return The metadata of the knowledge fields.
+	 */
+	public static KnowledgeMetadataRegistry createMetadata(int labelCount){
+		KnowledgeMetadataRegistry metadata = new KnowledgeMetadataRegistry();
+		for(int i = 0; i < labelCount; i++){
+			metadata.setBoundAndMetric(getLabel(i), 1 + i, new DifferenceMetric(), 0.8);
+		}
+		return metadata;
+	}
+
+	/**
+	 * Take a new sample of all the knowledge fields of all the components.
+	 */
+	public void step(){
+		long slotStart = step * CorrelationManager.DEFAULT_TIME_SLOT_DURATION;
+		for(SyntheticComponent component : components){
+			double position = component.id + Math.sin(step / 10.0);
+			for(int i = 0; i < labelCount; i++){
+				double value = (i + 1) * position + random.nextGaussian() / 2;
+				long timestamp = slotStart + (jitter == 0 ? 0 : random.nextInt(jitter + 1));
+				component.knowledge.put(getLabel(i),
+						new CorrelationMetadataWrapper<>(value, getLabel(i), timestamp));
+			}
+		}
+		step++;
+	}
+
+	/**
+	 * Mark the given knowledge field of the first component as faulty.
+	 * @param label The label of the faulty knowledge field.
+	 */
+	public void fail(String label){
+		components.iterator().next().faultyKnowledge.add(label);
+	}
+
+	@Override
+	public Set<? extends Component> getComponents() {
+		return components;
+	}
+
+	@Override
+	public Set<? extends DynamicConnector> getConnectors() {
+		return connectors;
+	}
+
+	@Override
+	public DynamicConnector addConnector(Predicate<Map<String, Object>> filter,
+			MediatedKnowledge mediatedKnowledge) {
+		SyntheticConnector connector = new SyntheticConnector();
+		connectors.add(connector);
+		return connector;
+	}
+
+	/**
+	 * A component of the {@link SyntheticSystem}.
+	 */
+	private static class SyntheticComponent implements Component {
+		/**
+		 * The position of the component in the system.
+		 */
+		private final int id;
+		/**
+		 * The latest samples of the knowledge fields.
+		 */
+		private final Map<String, Object> knowledge = new HashMap<>();
+		/**
+		 * The labels of the faulty knowledge fields.
+		 */
+		private final Set<String> faultyKnowledge = new HashSet<>();
+		/**
+		 * The ports added to the component.
+		 */
+		private final Set<ComponentPort> ports = new HashSet<>();
+
+		SyntheticComponent(int id){
+			this.id = id;
+		}
+
+		@Override
+		public Map<String, Object> getKnowledge() {
+			return knowledge;
+		}
+
+		@Override
+		public Set<String> getFaultyKnowledge() {
+			return faultyKnowledge;
+		}
+
+		@Override
+		public Set<? extends ComponentPort> getPorts() {
+			return Collections.unmodifiableSet(ports);
+		}
+
+		@Override
+		public ComponentPort addPort(Set<String> exposedKnowledge) {
+			ComponentPort port = new ComponentPort() {};
+			ports.add(port);
+			return port;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("C%d", id);
+		}
+	}
+
+	/**
+	 * A connector of the {@link SyntheticSystem}.
+	 */
+	private static class SyntheticConnector implements DynamicConnector {
+		@Override
+		public ConnectorPort addPort(Set<String> assumedKnowledge, Kind kind) {
+			return new ConnectorPort() {};
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright 2017 Charles University in Prague
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package cz.cuni.mff.d3s.metaadaptation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cz.cuni.mff.d3s.metaadaptation.correlation.CorrelationManager;
+import cz.cuni.mff.d3s.metaadaptation.instrumentation.AdaptationStatistics;
+import cz.cuni.mff.d3s.metaadaptation.instrumentation.MAPEInstrumentation;
+import cz.cuni.mff.d3s.metaadaptation.instrumentation.Phase;
+
+
+/**
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ *
+ */
+public class MetaAdaptationManager {
+		
+	public List<MAPEAdaptation> adaptations;
+	
+	private boolean verbose;
+	
+	/**
+	 * Records the timing of the phases of the adaptations. Null if the timing is not recorded.
+	 */
+	private volatile MAPEInstrumentation instrumentation;
+	
+	public MetaAdaptationManager(){
+		adaptations = new ArrayList<>();
+		verbose = false;
+		instrumentation = null;
+	}
+	
+	public void addAdaptation(MAPEAdaptation adaptation){
+		adaptations.add(adaptation);
+	}
+	
+	public void setVerbosity(boolean verbosity){
+		verbose = verbosity;
+	}
+	
+	/**
+	 * Set the instrumentation that records the latency of each phase of each adaptation,
+	 * the results of the analyze phases and the counts of the items processed by the
+	 * adaptations implementing the {@link cz.cuni.mff.d3s.metaadaptation.instrumentation.ItemCounters}.
+	 * @param instrumentation The instrumentation. Null disables the recording.
+	 */
+	public void setInstrumentation(MAPEInstrumentation instrumentation){
+		this.instrumentation = instrumentation;
+	}
+	
+	/**
+	 * Returns the instrumentation recording the phases of the adaptations.
+	 * @return The instrumentation. Null if the phases are not recorded.
+	 */
+	public MAPEInstrumentation getInstrumentation(){
+		return instrumentation;
+	}
+	
+	/**
+	 * Run the MAPE loop of all registered {@link MAPEAdaptation}s.
+	 */
+	public void reason() {
+		MAPEInstrumentation instrumentation = this.instrumentation;
+		for(MAPEAdaptation adaptation : adaptations){
+			if(adaptation instanceof CorrelationManager){
+				((CorrelationManager)adaptation).printHistory();
+			}
+			if(instrumentation != null){
+				reason(adaptation, instrumentation.getStatistics(adaptation));
+				continue;
+			}
+			adaptation.monitor();
+			boolean isApplicable = adaptation.analyze();
+			if(isApplicable){
+				adaptation.plan();
+				adaptation.execute();
+			}
+		}
+		
+	}
+	
+	/**
+	 * Run the MAPE loop of the given adaptation and record the latencies of its phases.
+	 * @param adaptation The adaptation to be run.
+	 * @param statistics The statistics of the adaptation.
+	 */
+	private void reason(MAPEAdaptation adaptation, AdaptationStatistics statistics) {
+		long start = System.nanoTime();
+		adaptation.monitor();
+		long monitored = System.nanoTime();
+		statistics.record(Phase.Monitor, monitored - start);
+		boolean isApplicable = adaptation.analyze();
+		long analyzed = System.nanoTime();
+		statistics.recordAnalyze(analyzed - monitored, isApplicable);
+		if(isApplicable){
+			adaptation.plan();
+			long planned = System.nanoTime();
+			statistics.record(Phase.Plan, planned - analyzed);
+			adaptation.execute();
+			statistics.record(Phase.Execute, System.nanoTime() - planned);
+		}
+	}
+}
@@ -19,14 +19,16 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import cz.cuni.mff.d3s.metaadaptation.MAPEAdaptation;
+import cz.cuni.mff.d3s.metaadaptation.instrumentation.ItemCounters;
 
 /**
  * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
  *
  */
-public class ComponentIsolationManager implements MAPEAdaptation {
+public class ComponentIsolationManager implements MAPEAdaptation, ItemCounters {
 	
 	private class ComponentFaults {
 		public final Component component;
@@ -44,6 +46,11 @@ public class ComponentIsolationManager implements MAPEAdaptation {
 	private final Set<ComponentFaults> isolationCandidates;
 	private boolean verbose;
 	
+	/**
+	 * The count of the ports removed so far.
+	 */
+	private final AtomicLong removedPorts = new AtomicLong();
+	
 	public ComponentIsolationManager(ComponentManager componentManager){
 		if(componentManager == null){
 			throw new IllegalArgumentException(String.format("The %s argument is null.", "componentManager"));
@@ -57,6 +64,14 @@ public class ComponentIsolationManager implements MAPEAdaptation {
 		verbose = verbosity;
 	}
 	
+	/* (non-Javadoc)
+	 * @see cz.cuni.mff.d3s.metaadaptation.instrumentation.ItemCounters#getItemCounts()
+	 */
+	@Override
+	public Map<String, Long> getItemCounts() {
+		return Collections.singletonMap("portsRemoved", removedPorts.get());
+	}
+	
 
 	/* (non-Javadoc)
 	 * @see cz.cuni.mff.d3s.metaadaptation.MAPEAdaptation#monitor()
@@ -139,6 +154,7 @@ public class ComponentIsolationManager implements MAPEAdaptation {
 		for(ComponentFaults candidate : isolationCandidates){
 			for(Port port : candidate.portsToRemove){
 				candidate.component.removePort(port);
+				removedPorts.incrementAndGet();
 				if(verbose){
 					System.out.println(String.format("Port %s in %s removed.",
 							port, candidate.component));
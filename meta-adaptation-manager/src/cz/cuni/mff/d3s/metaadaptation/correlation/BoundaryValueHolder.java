@@ -0,0 +1,174 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.io.Serializable;
+
+/**
+ * Holds a boundary value together with a flag indicating whether the value
+ * has changed since it was lastly used.
+ * 
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ *
+ */
+public class BoundaryValueHolder implements Serializable {
+	
+	/**
+	 * Generated UID.
+	 */
+	private static final long serialVersionUID = -6438264656364851855L;
+
+	/**
+	 * The limit beyond which two doubles are considered equal.
+	 * The value of this constant influences the granularity of changing
+	 * the boundary.
+	 */
+	protected static final double EPSILON = 0.01;
+	
+	/**
+	 * Stored value of the boundary.
+	 */
+	private double boundary;
+	/**
+	 * Flag indicating whether the boundary has changed enough (see {@link #EPSILON})
+	 * since it was lastly used.
+	 */
+	private boolean changed;
+	/**
+	 * The bound on the error of the correlation level achieved by the boundary.
+	 * Zero if the boundary has been computed exactly.
+	 */
+	private double errorBound;
+	/**
+	 * The probability with which the error of the correlation level achieved
+	 * by the boundary stays within the {@link #errorBound}.
+	 */
+	private double errorConfidence;
+	/**
+	 * The version of the data the boundary has been computed from.
+	 * -1 if the boundary hasn't been computed from versioned data.
+	 */
+	private long dataVersion;
+	/**
+	 * The version of the metadata and settings the boundary has been computed with.
+	 * -1 if the boundary hasn't been computed from versioned data.
+	 */
+	private long settingsVersion;
+	
+	/**
+	 * Construct new instance of the {@link BoundaryValueHolder} with the
+	 * given value to hold. The {@link #hasChanged()} flag is set by default
+	 * to true.
+	 * @param boundary The boundary value to be held.
+	 */
+	public BoundaryValueHolder(double boundary) {
+		this.boundary = boundary;
+		this.changed = true;
+		this.errorBound = 0;
+		this.errorConfidence = 1;
+		this.dataVersion = -1;
+		this.settingsVersion = -1;
+	}
+	
+	/**
+	 * Set new boundary to be held. If the boundary differs from the previous
+	 * one more than {@link #EPSILON} than the {@link #hasChanged()} flag
+	 * is set to true.
+	 * @param boundary The boundary to be held.
+	 */
+	public void setBoundary(double boundary) {
+		if(Double.isNaN(boundary) && Double.isNaN(this.boundary)) {
+			return;
+		}
+		if(Double.isNaN(boundary) || Double.isNaN(this.boundary)
+				|| Math.abs(this.boundary - boundary) > EPSILON) {
+			this.boundary = boundary;
+			changed = true;
+		}
+	}
+	
+	/**
+	 * Set the bound on the error of the correlation level achieved by the boundary.
+	 * Used when the boundary is estimated from a sample of the data.
+	 * @param errorBound The bound on the error of the correlation level.
+	 * @param errorConfidence The probability with which the error stays within the bound.
+	 */
+	public void setError(double errorBound, double errorConfidence) {
+		this.errorBound = errorBound;
+		this.errorConfidence = errorConfidence;
+	}
+	
+	/**
+	 * Read the bound on the error of the correlation level achieved by the boundary.
+	 * The error is zero if the boundary has been computed exactly.
+	 * @return The bound on the error of the correlation level achieved by the boundary.
+	 */
+	public double getErrorBound() {
+		return errorBound;
+	}
+	
+	/**
+	 * Read the probability with which the error of the correlation level achieved
+	 * by the boundary stays within the {@link #getErrorBound()}.
+	 * @return The probability with which the error stays within the bound.
+	 */
+	public double getErrorConfidence() {
+		return errorConfidence;
+	}
+	
+	/**
+	 * Record the versions of the inputs the boundary has been computed from.
+	 * @param dataVersion The version of the data the boundary has been computed from.
+	 * @param settingsVersion The version of the metadata and settings the boundary
+	 * has been computed with.
+	 */
+	public void setComputedFrom(long dataVersion, long settingsVersion) {
+		this.dataVersion = dataVersion;
+		this.settingsVersion = settingsVersion;
+	}
+	
+	/**
+	 * Indicates whether the boundary has been computed from the inputs of the given versions,
+	 * so computing it again would give the same boundary.
+	 * @param dataVersion The version of the data.
+	 * @param settingsVersion The version of the metadata and settings.
+	 * @return True if the boundary has been computed from the inputs of the given versions.
+	 */
+	public boolean isComputedFrom(long dataVersion, long settingsVersion) {
+		return this.dataVersion >= 0
+				&& this.dataVersion == dataVersion
+				&& this.settingsVersion == settingsVersion;
+	}
+	
+	/**
+	 * Read the stored boundary.
+	 * @return The stored boundary.
+	 */
+	public double getBoundary() {
+		return boundary;
+	}
+	
+	/**
+	 * Indicates whether the boundary is valid (is not NaN).
+	 * @return True if the boundary is not NaN.
+	 */
+	public boolean isValid() {
+		return !Double.isNaN(boundary);
+	}
+	
+	/**
+	 * Set the {@link #hasChanged()} flag to false. Indicate that
+	 * the current value has been used.
+	 */
+	public void boundaryUsed() {
+		changed = false;
+	}
+	
+	/**
+	 * Indicates whether the stored boundary value has changed enough
+	 * (see {@link #EPSILON}) since its last usage.
+	 * @return
+	 */
+	public boolean hasChanged() {
+		return changed;
+	}
+
+}
@@ -65,14 +65,7 @@ public class ComponentPair implements Serializable {
 	
 	@Override
 	public int hashCode() {
-		Component smaller, bigger;
-		if(component1.hashCode() < component2.hashCode()){
-			smaller = component1;
-			bigger = component2;
-		} else {
-			smaller = component2;
-			bigger = component1;
-		}
-		return String.format("%s;%s", smaller, bigger).hashCode();
+		// Symmetric since the ordering of the components doesn't matter
+		return component1.hashCode() + component2.hashCode();
 	}
 }
@@ -0,0 +1,213 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import static cz.cuni.mff.d3s.metaadaptation.correlation.ConnectorManager.COORD_FILTER_FIELD;
+import static cz.cuni.mff.d3s.metaadaptation.correlation.ConnectorManager.MEMBER_FILTER_FIELD;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import cz.cuni.mff.d3s.metaadaptation.correlation.metric.DifferenceMetric;
+import cz.cuni.mff.d3s.metaadaptation.correlation.metric.DoubleMetric;
+import cz.cuni.mff.d3s.metaadaptation.correlation.metric.Metric;
+
+/**
+ * The membership predicate of a correlation connector. A member belongs to the connector
+ * if the distance of its value of the filtering knowledge field from the value of the
+ * coordinator is smaller than the boundary.
+ * <p>
+ * The filter is compiled from the {@link KnowledgeMetadata} of the filtering knowledge
+ * field and the boundary, so no lookup is made when it is tested. The boundary can be
+ * updated in place while the connector stays deployed.
+ * Besides the {@link Predicate} interface over the map of parameters the filter can test
+ * the values directly and whole arrays of member values against a single coordinator value.
+ * The members of a filter measured by the {@link DifferenceMetric} can be looked up
+ * in a {@link KnowledgeValueIndex} without testing all of them.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class CorrelationFilter implements Predicate<Map<String, Object>> {
+
+	/**
+	 * The label of the filtering knowledge field.
+	 */
+	private final String label;
+	/**
+	 * The metric of the filtering knowledge field. Null if the knowledge field has no metadata.
+	 */
+	private final Metric metric;
+	/**
+	 * The metric of the filtering knowledge field if it measures primitive values. Null otherwise.
+	 */
+	private final DoubleMetric doubleMetric;
+	/**
+	 * The boundary of the distance of the member and the coordinator.
+	 */
+	private volatile double boundary;
+
+	/**
+	 * Create a new instance of {@link CorrelationFilter}.
+	 * @param label The label of the filtering knowledge field.
+	 * @param metadata The metadata of the filtering knowledge field. If null no member
+	 * passes the filter.
+	 * @param boundary The boundary of the distance of the member and the coordinator.
+	 */
+	public CorrelationFilter(String label, KnowledgeMetadata metadata, double boundary){
+		if(label == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "label"));
+		}
+
+		this.label = label;
+		this.metric = metadata == null ? null : metadata.getMetric();
+		this.doubleMetric = metric instanceof DoubleMetric ? (DoubleMetric) metric : null;
+		this.boundary = boundary;
+	}
+
+	/**
+	 * Returns the label of the filtering knowledge field.
+	 * @return The label of the filtering knowledge field.
+	 */
+	public String getLabel(){
+		return label;
+	}
+
+	/**
+	 * Returns the boundary of the distance of the member and the coordinator.
+	 * @return The boundary of the distance of the member and the coordinator.
+	 */
+	public double getBoundary(){
+		return boundary;
+	}
+
+	/**
+	 * Set the boundary of the distance of the member and the coordinator.
+	 * @param boundary The boundary of the distance of the member and the coordinator.
+	 */
+	public void setBoundary(double boundary){
+		this.boundary = boundary;
+	}
+
+	/**
+	 * Tests the values of the filtering knowledge field given in the parameters
+	 * under the {@link ConnectorManager#MEMBER_FILTER_FIELD} and the
+	 * {@link ConnectorManager#COORD_FILTER_FIELD}.
+	 * @param params The values of the filtering knowledge field.
+	 * @return True if the member belongs to the connector.
+	 */
+	@Override
+	public boolean test(Map<String, Object> params) {
+		return test(params.get(MEMBER_FILTER_FIELD), params.get(COORD_FILTER_FIELD));
+	}
+
+	/**
+	 * Tests whether the member with the given value of the filtering knowledge field
+	 * belongs to the connector.
+	 * @param memberValue The value of the member.
+	 * @param coordValue The value of the coordinator.
+	 * @return True if the member belongs to the connector.
+	 */
+	public boolean test(Object memberValue, Object coordValue){
+		if(metric == null){
+			return false;
+		}
+		return metric.distance(memberValue, coordValue) < boundary;
+	}
+
+	/**
+	 * Tests whether the member with the given value of the filtering knowledge field
+	 * belongs to the connector.
+	 * @param memberValue The value of the member.
+	 * @param coordValue The value of the coordinator.
+	 * @return True if the member belongs to the connector.
+	 */
+	public boolean test(double memberValue, double coordValue){
+		if(doubleMetric != null){
+			return doubleMetric.distance(memberValue, coordValue) < boundary;
+		}
+		return test((Object) memberValue, (Object) coordValue);
+	}
+
+	/**
+	 * Tests which of the members with the given values of the filtering knowledge field
+	 * belong to the connector.
+	 * @param coordValue The value of the coordinator.
+	 * @param memberValues The values of the members.
+	 * @param result The array the results are stored to. Has to be at least as long
+	 * as the memberValues array.
+	 * @return The count of the members that belong to the connector.
+	 */
+	public int testAll(Object coordValue, Object[] memberValues, boolean[] result){
+		int count = 0;
+		for(int i = 0; i < memberValues.length; i++){
+			result[i] = test(memberValues[i], coordValue);
+			if(result[i]){
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Tests which of the members with the given values of the filtering knowledge field
+	 * belong to the connector. The values are measured without boxing if the metric
+	 * of the filtering knowledge field is a {@link DoubleMetric}.
+	 * @param coordValue The value of the coordinator.
+	 * @param memberValues The values of the members.
+	 * @param result The array the results are stored to. Has to be at least as long
+	 * as the memberValues array.
+	 * @return The count of the members that belong to the connector.
+	 */
+	public int testAll(double coordValue, double[] memberValues, boolean[] result){
+		if(doubleMetric == null){
+			int count = 0;
+			for(int i = 0; i < memberValues.length; i++){
+				result[i] = test((Object) memberValues[i], (Object) coordValue);
+				if(result[i]){
+					count++;
+				}
+			}
+			return count;
+		}
+
+		int count = 0;
+		for(int i = 0; i < memberValues.length; i++){
+			result[i] = doubleMetric.distance(memberValues[i], coordValue) < boundary;
+			if(result[i]){
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the components from the given index whose value of the filtering knowledge
+	 * field passes the filter. The index is searched by range if the metric of the filtering
+	 * knowledge field is the {@link DifferenceMetric}. All the indexed values are tested otherwise.
+	 * @param index The index of the current values of the filtering knowledge field.
+	 * @param coordValue The value of the coordinator.
+	 * @return The components that belong to the connector.
+	 */
+	public List<Component> getMembers(KnowledgeValueIndex index, double coordValue){
+		if(index == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "index"));
+		}
+		if(metric != null && metric.getClass() == DifferenceMetric.class){
+			return index.getWithin(coordValue, boundary);
+		}
+
+		List<Component> members = new ArrayList<>();
+		for(int i = 0; i < index.size(); i++){
+			if(test(index.getValue(i), coordValue)){
+				members.add(index.getComponent(i));
+			}
+		}
+		return members;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s < %f", label, boundary);
+	}
+}
@@ -58,13 +58,29 @@ public class CorrelationLevel implements Serializable {
 	 * the second label that will be compared.
 	 */
 	private int data2CloseCount;
+	/**
+	 * The metadata of the knowledge fields. The {@link KnowledgeMetadataHolder} is used if null.
+	 */
+	private transient KnowledgeMetadataRegistry metadata;
 	
 	/**
 	 * Create new instance of CorrelationLevel for given pair of labels.
+	 * The metadata of the knowledge fields are taken from the {@link KnowledgeMetadataHolder}.
 	 * @param labels the pair of label for which the correlation will be held.
 	 */
 	public CorrelationLevel(LabelPair labels){
+		this(labels, null);
+	}
+
+	/**
+	 * Create new instance of CorrelationLevel for given pair of labels.
+	 * @param labels the pair of label for which the correlation will be held.
+	 * @param metadata The metadata of the knowledge fields. The {@link KnowledgeMetadataHolder}
+	 * is used if null.
+	 */
+	public CorrelationLevel(LabelPair labels, KnowledgeMetadataRegistry metadata){
 		this.labels = labels;
+		this.metadata = metadata;
 		data1CloseCount = 0;
 		data2CloseCount = 0;
 	}
@@ -78,16 +94,26 @@ public class CorrelationLevel implements Serializable {
 	 */
 	public void addValues(Object component1Value1, Object component2Value1,
 			Object component1Value2, Object component2Value2){
-		if(DistanceClass.Close == KnowledgeMetadataHolder.classifyDistance(
+		KnowledgeMetadataRegistry metadata = getMetadata();
+		if(DistanceClass.Close == metadata.classifyDistance(
 				labels.getFirstLabel(), component1Value1, component2Value1)){
 			data1CloseCount++;
-			if(DistanceClass.Close == KnowledgeMetadataHolder.classifyDistance(
+			if(DistanceClass.Close == metadata.classifyDistance(
 					labels.getSecondLabel(), component1Value2, component2Value2)){
 				data2CloseCount++;
 			}
 		}
 	}
 	
+	/**
+	 * Returns the metadata of the knowledge fields.
+	 * @return The metadata of the knowledge fields given to the constructor,
+	 * the registry of the {@link KnowledgeMetadataHolder} if none was given.
+	 */
+	protected KnowledgeMetadataRegistry getMetadata(){
+		return metadata != null ? metadata : KnowledgeMetadataHolder.getRegistry();
+	}
+
 	/**
 	 * Returns the pair of labels for which the correlation is held in this instance.
 	 * @return The pair of labels for which the correlation is held in this instance.
@@ -107,4 +133,4 @@ public class CorrelationLevel implements Serializable {
 	}
 	
 	
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,2173 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import cz.cuni.mff.d3s.metaadaptation.MAPEAdaptation;
+import cz.cuni.mff.d3s.metaadaptation.correlation.ConnectorManager.MediatedKnowledge;
+import cz.cuni.mff.d3s.metaadaptation.correlation.CorrelationLevel.DistanceClass;
+import cz.cuni.mff.d3s.metaadaptation.correlation.metric.DoubleMetric;
+import cz.cuni.mff.d3s.metaadaptation.instrumentation.ItemCounters;
+
+public class CorrelationManager implements MAPEAdaptation, ItemCounters {
+
+	/**
+	 * Specify whether to print the values being processed by the correlation computation.
+	 */
+	private boolean dumpValues = false;
+
+	private boolean verbose = false;
+
+	/**
+	 * The default time slot duration in milliseconds.
+	 */
+	public static final long DEFAULT_TIME_SLOT_DURATION = 1000;
+
+	/**
+	 * Time slot duration in milliseconds. Correlation of values is computed
+	 * within these time slots.
+	 */
+	private long timeSlotDuration = DEFAULT_TIME_SLOT_DURATION;
+
+	/**
+	 * The durations of the time slots of the coarse histories kept in addition
+	 * to the histories of the individual values.
+	 */
+	private long[] rollupDurations = new long[0];
+
+	/**
+	 * The maximal count of time slots held in a single coarse history.
+	 */
+	private int rollupCapacity = DEFAULT_ROLLUP_CAPACITY;
+
+	/**
+	 * The duration of the time slots the correlation is planned within in milliseconds.
+	 * The coarse histories are used if they are kept for this duration. 0 stands for
+	 * the {@link #timeSlotDuration}.
+	 */
+	private long planningResolution = 0;
+
+	/**
+	 * The duration of the time slots the {@link #labelPairDistances} were computed for.
+	 */
+	private long incrementalSlotDuration = 0;
+
+	/**
+	 * The default maximal count of values held in the history of a single knowledge field.
+	 * The history is not bounded by default.
+	 */
+	public static final int DEFAULT_HISTORY_CAPACITY = Integer.MAX_VALUE;
+
+	/**
+	 * The default maximal count of time slots held in a single coarse history.
+	 */
+	public static final int DEFAULT_ROLLUP_CAPACITY = 1000;
+
+	/**
+	 * The maximal count of values held in the history of a single knowledge field.
+	 */
+	private int historyCapacity = DEFAULT_HISTORY_CAPACITY;
+
+	/**
+	 * The time span in milliseconds for which the values of knowledge fields are held.
+	 */
+	private long historyTimeHorizon = Long.MAX_VALUE;
+
+	/**
+	 * The strategy of making room in a full history of a knowledge field.
+	 */
+	private HistoryEvictionPolicy historyEvictionPolicy = HistoryEvictionPolicy.OldestFirst;
+
+	/**
+	 * Specify whether the numeric knowledge fields are stored in the columnar
+	 * {@link NumericKnowledgeHistory}.
+	 */
+	private boolean columnarStorage = true;
+
+	/**
+	 * Specify whether the distances are kept between the planning cycles and only
+	 * the newly observed time slots are folded in.
+	 */
+	private boolean incrementalPlanning = false;
+
+	/**
+	 * The count of component pairs below which the distances are computed within
+	 * a single task when planning in parallel.
+	 */
+	private static final int PARALLEL_COMPONENT_PAIRS_THRESHOLD = 16;
+
+	/**
+	 * The pool the planning is spread across. The planning is sequential if null.
+	 */
+	private ForkJoinPool planningPool = null;
+
+	/**
+	 * The count of the buckets per the distance bound of the filtering knowledge field
+	 * used by the online estimation of the boundaries.
+	 */
+	private static final int ONLINE_BUCKETS_PER_BOUND = 16;
+
+	/**
+	 * The count of the buckets of the distances used by the online estimation of the boundaries.
+	 */
+	private static final int ONLINE_BUCKET_COUNT = 1024;
+
+	/**
+	 * Specify whether the boundaries are estimated online by the {@link DecayedCorrelationLevel}
+	 * from the time slots added since the last planning.
+	 */
+	private boolean onlinePlanning = false;
+
+	/**
+	 * The half-life of the weight of a time slot in the online estimation in time slots.
+	 */
+	private double onlineHalfLife = Double.POSITIVE_INFINITY;
+
+	/**
+	 * The online estimators of the correlation of the label pairs. Keyed by the packed label IDs.
+	 */
+	private final LongObjectMap<DecayedCorrelationLevel> onlineLevels = new LongObjectMap<>();
+
+	/**
+	 * The duration of the time slots the {@link #onlineLevels} were estimated for.
+	 */
+	private long onlineSlotDuration = 0;
+
+	/**
+	 * Specify whether the distances of all the planned label pairs are computed at once
+	 * by the {@link CorrelationMatrix}.
+	 */
+	private boolean matrixPlanning = true;
+
+	/**
+	 * Specify whether the boundaries are estimated from a sample of the component
+	 * pairs and time slots instead of being computed from all the data.
+	 */
+	private boolean approximatePlanning = false;
+
+	/**
+	 * The bound on the error of the correlation level achieved by the estimated boundaries.
+	 */
+	private double approximationErrorBound = 0.05;
+
+	/**
+	 * The probability with which the error of the estimated boundaries stays within
+	 * the {@link #approximationErrorBound}.
+	 */
+	private double approximationErrorConfidence = 0.95;
+
+	/**
+	 * Specify whether only the label pairs whose second label is faulty are planned.
+	 * The other label pairs are prefetched in the idle cycles.
+	 */
+	private boolean lazyPlanning = false;
+
+	/**
+	 * The maximal count of label pairs prefetched in a single idle cycle
+	 * when the {@link #lazyPlanning} is enabled.
+	 */
+	private int prefetchBudget = 1;
+
+	/**
+	 * The executor the prefetching runs on in the background.
+	 * Null to prefetch within the {@link #analyze()}.
+	 */
+	private Executor prefetchExecutor = ForkJoinPool.commonPool();
+
+	/**
+	 * Indicates whether a prefetching is scheduled on the {@link #prefetchExecutor}
+	 * and not finished yet.
+	 */
+	private final AtomicBoolean prefetchPending = new AtomicBoolean(false);
+
+	/**
+	 * The count of the MAPE cycles monitored so far.
+	 */
+	private long cycle = 0;
+
+	/**
+	 * The last cycles in which the individual label pairs were planned.
+	 * Keyed by the packed label IDs.
+	 */
+	private final LongObjectMap<Long> plannedCycles = new LongObjectMap<>();
+
+	/**
+	 * The version of the settings that influence the computed boundaries. Incremented
+	 * whenever such a setting changes, so the boundaries are computed again.
+	 */
+	private final AtomicLong settingsVersion = new AtomicLong();
+
+	/**
+	 * The count of the label pairs whose boundaries were not computed again
+	 * because theirs data didn't change since the last computation.
+	 */
+	private final AtomicLong boundaryCacheHits = new AtomicLong();
+
+	/**
+	 * The count of the label pairs whose boundaries were computed.
+	 */
+	private final AtomicLong boundaryCacheMisses = new AtomicLong();
+
+	/**
+	 * The count of the samples added to the histories.
+	 */
+	private final AtomicLong ingestedSamples = new AtomicLong();
+
+	/**
+	 * The count of the calls made to the components and connectors to reconfigure the system.
+	 */
+	private final AtomicLong reconfigurationCalls = new AtomicLong();
+
+	/**
+	 * The last cycles in which the individual knowledge fields were faulty in any component.
+	 */
+	private final Map<String, Long> faultyCycles = new HashMap<>();
+
+	/**
+	 * The file the snapshots of the correlation state are written to. Null if no snapshot is written.
+	 */
+	private Path snapshotFile = null;
+
+	/**
+	 * The count of the MAPE cycles between two snapshots written to the {@link #snapshotFile}.
+	 */
+	private int snapshotInterval = 0;
+
+	/**
+	 * The shutdown hook writing the snapshot. Null if not registered.
+	 */
+	private Thread snapshotHook = null;
+
+	/**
+	 * Provides the keys identifying the components across the restarts in the snapshots.
+	 */
+	private Function<Component, String> componentKey = Object::toString;
+
+	/**
+	 * The restored snapshot whose histories are attached to the components as they appear.
+	 * Null if no snapshot is being restored.
+	 */
+	private CorrelationSnapshot restoredSnapshot = null;
+
+	/**
+	 * The histories replayed from the {@link KnowledgeLog} that are attached to the components
+	 * as they appear, indexed by the keys of the components.
+	 */
+	private final Map<String, Map<String, KnowledgeHistory>> replayedHistories = new HashMap<>();
+
+	/**
+	 * The log the monitored samples are appended to. Null if the samples are not logged.
+	 */
+	private KnowledgeLog knowledgeLog = null;
+
+	/**
+	 * Specify whether the {@link #monitor()} polls the knowledge of the components
+	 * provided by the {@link ComponentManager}.
+	 */
+	private boolean polling = true;
+
+	/**
+	 * Specify whether the polled samples equal to the latest values of the histories are dropped.
+	 */
+	private boolean sampleDeduplication = false;
+
+	/**
+	 * The samples published since the last monitoring.
+	 */
+	private final ConcurrentLinkedQueue<PublishedSample> publishedSamples = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * The source of randomness for the sampling of the data.
+	 */
+	private final Random random = new Random();
+	
+	/**
+	 * Components of the system.
+	 */
+	private final ComponentManager componentManager;
+	
+	/**
+	 * The connectors of the system.
+	 */
+	private final ConnectorManager connectorManager;
+	
+	/**
+	 * The connectors deployed by the correlation manager.
+	 */
+	private final DeployedConnectors deployedConnectors;
+	
+	/**
+	 * Caches the failures that has been already analyzed, to save time.
+	 */
+	private final Map<Component, Set<String>> analyzedFailures;
+	
+	private final Map<Component, Set<String>> handledFailures;
+	
+	/**
+	 * Holds the history of knowledge of all the other components in the system.
+	 *
+	 * String - Label of a knowledge field of the component
+	 * KnowledgeHistory - bounded history of the knowledge field values together with theirs meta data
+	 */
+	public Map<Component, Map<String, KnowledgeHistory>> knowledgeHistoryOfAllComponents;
+
+	/**
+	 * Computed distance bounds that ensures the correlation between the data satisfies given confidence level.
+	 * If the data are not correlated the value stored is Double.NaN.
+	 * The bound applies to the distance of knowledge values identified by the first label in the LabelPair.
+	 */
+	public Map<LabelPair, BoundaryValueHolder> distanceBounds;
+
+	/**
+	 * The distances kept between the planning cycles for the individual label pairs
+	 * when the {@link #incrementalPlanning} is enabled.
+	 */
+	private final LongObjectMap<LabelPairDistances> labelPairDistances;
+
+	/**
+	 * Interns the knowledge labels and the components to the IDs the planning is indexed by.
+	 */
+	private final KnowledgeRegistry registry;
+
+	/**
+	 * The index of the knowledge fields held by the components in the
+	 * {@link #knowledgeHistoryOfAllComponents}, using the IDs of the {@link #registry}.
+	 */
+	private final KnowledgeIndex knowledgeIndex = new KnowledgeIndex();
+
+	/**
+	 * The metadata of the knowledge fields.
+	 */
+	private final KnowledgeMetadataRegistry metadata;
+
+	/**
+	 * The indexes of the current values of the knowledge fields built since the last monitoring.
+	 */
+	private final Map<String, KnowledgeValueIndex> valueIndexes;
+
+	/**
+	 * The coarse histories of the numeric knowledge fields of the components. The rollups
+	 * of each knowledge field correspond to the {@link #rollupDurations}.
+	 */
+	private final Map<Component, Map<String, KnowledgeRollup[]>> rollups = new HashMap<>();
+
+	/**
+	 * Create an instance of the {@link CorrelationManager} that will hold
+	 * a reference to the given system {@link EnsembleManager}.
+	 * The metadata of the knowledge fields are taken from the {@link KnowledgeMetadataHolder}.
+	 * @param ensembleManager The system {@link EnsembleManager}.
+	 */
+	public CorrelationManager(ComponentManager componentManager, ConnectorManager connectorManager) {
+		this(componentManager, connectorManager, KnowledgeMetadataHolder.getRegistry());
+	}
+
+	/**
+	 * Create an instance of the {@link CorrelationManager} that will hold
+	 * a reference to the given system {@link EnsembleManager}.
+	 * @param ensembleManager The system {@link EnsembleManager}.
+	 * @param metadata The metadata of the knowledge fields.
+	 */
+	public CorrelationManager(ComponentManager componentManager, ConnectorManager connectorManager,
+			KnowledgeMetadataRegistry metadata) {
+		if(componentManager == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "componentManager"));
+		}
+		if(connectorManager == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "connectorManager"));
+		}
+		if(metadata == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "metadata"));
+		}
+		
+		knowledgeHistoryOfAllComponents = new HashMap<>();
+		analyzedFailures = new HashMap<>();
+		handledFailures = new HashMap<>();
+		distanceBounds = new HashMap<>();
+		labelPairDistances = new LongObjectMap<>();
+		registry = new KnowledgeRegistry();
+		valueIndexes = new HashMap<>();
+
+		this.componentManager = componentManager;
+		this.connectorManager = connectorManager;
+		this.metadata = metadata;
+		deployedConnectors = new DeployedConnectors(connectorManager);
+	}
+	
+
+	public void setVerbosity(boolean verbosity){
+		verbose = verbosity;
+	}
+
+	public void setDumpValues(boolean dumpValues){
+		this.dumpValues = dumpValues;
+	}
+
+	/**
+	 * Set the maximal count of values held in the history of a single knowledge field.
+	 * Applies to the histories created after the call. The history is not bounded by default.
+	 * @param capacity The maximal count of values held in the history.
+	 */
+	public void setHistoryCapacity(int capacity){
+		if(capacity < 1){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "capacity"));
+		}
+		historyCapacity = capacity;
+	}
+
+	/**
+	 * Set the time span in milliseconds for which the values of knowledge fields are held.
+	 * Applies to the histories created after the call.
+	 * @param timeHorizon The time span in milliseconds for which the values are held.
+	 */
+	public void setHistoryTimeHorizon(long timeHorizon){
+		if(timeHorizon < 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is negative.", "timeHorizon"));
+		}
+		historyTimeHorizon = timeHorizon;
+	}
+
+	/**
+	 * Set the strategy of making room in a full history of a knowledge field.
+	 * Applies to the histories created after the call.
+	 * @param evictionPolicy The strategy of making room in a full history.
+	 */
+	public void setHistoryEvictionPolicy(HistoryEvictionPolicy evictionPolicy){
+		if(evictionPolicy == null){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is null.", "evictionPolicy"));
+		}
+		historyEvictionPolicy = evictionPolicy;
+	}
+
+	/**
+	 * Set whether the numeric knowledge fields are stored in columns of primitive values.
+	 * Applies to the histories created after the call.
+	 * @param columnarStorage True to store the numeric knowledge fields in columns
+	 * of primitive values.
+	 */
+	public void setColumnarStorage(boolean columnarStorage){
+		this.columnarStorage = columnarStorage;
+	}
+
+	/**
+	 * Set whether the distances are kept between the planning cycles so that each
+	 * planning folds in only the newly observed time slots. The values arriving late
+	 * into already processed time slots are ignored in this mode.
+	 * @param incrementalPlanning True to plan incrementally.
+	 */
+	public void setIncrementalPlanning(boolean incrementalPlanning){
+		this.incrementalPlanning = incrementalPlanning;
+		settingsVersion.incrementAndGet();
+		if(!incrementalPlanning){
+			labelPairDistances.clear();
+		}
+	}
+
+	/**
+	 * Set the pool the planning is spread across. The label pairs and the component
+	 * pairs within each label pair are processed in parallel tasks. The results are
+	 * merged in the same order as if the planning was sequential.
+	 * @param planningPool The pool the planning is spread across. Null for sequential planning.
+	 */
+	public void setPlanningPool(ForkJoinPool planningPool){
+		this.planningPool = planningPool;
+	}
+
+	/**
+	 * Set whether the boundaries are estimated online. Each label pair keeps the decayed
+	 * weights of the close and far distances per bucket of the distance of the filtering
+	 * knowledge field in a {@link DecayedCorrelationLevel}. Each planning adds only the time
+	 * slots that appeared since the previous planning and reads the boundaries off the buckets.
+	 * The boundaries are rounded up to the width of the buckets, which is 1/16 of the distance
+	 * bound of the filtering knowledge field. The approximate planning takes precedence.
+	 * @param onlinePlanning True to estimate the boundaries online.
+	 */
+	public synchronized void setOnlinePlanning(boolean onlinePlanning){
+		this.onlinePlanning = onlinePlanning;
+		onlineLevels.clear();
+		settingsVersion.incrementAndGet();
+	}
+
+	/**
+	 * Set the half-life of the weight of a time slot in the online estimation of the boundaries.
+	 * The shorter the half-life the faster the boundaries follow the changes in the behaviour
+	 * of the sensors. The existing estimates are discarded.
+	 * @param halfLife The half-life in time slots. {@link Double#POSITIVE_INFINITY} for no decay.
+	 */
+	public synchronized void setOnlineHalfLife(double halfLife){
+		if(!(halfLife > 0)){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "halfLife"));
+		}
+		onlineHalfLife = halfLife;
+		onlineLevels.clear();
+		settingsVersion.incrementAndGet();
+	}
+
+	/**
+	 * Set whether the distances of all the planned label pairs are computed at once by
+	 * the {@link CorrelationMatrix}, which aligns the histories of each component pair
+	 * once for all the labels. The boundaries are the same as if each label pair was
+	 * planned separately. Not applied to the incremental and approximate planning.
+	 * @param matrixPlanning True to compute the distances of all the label pairs at once.
+	 */
+	public void setMatrixPlanning(boolean matrixPlanning){
+		this.matrixPlanning = matrixPlanning;
+	}
+
+	/**
+	 * Set whether the boundaries are estimated from a sample of the component pairs
+	 * and time slots instead of being computed from all the data. The sample size is
+	 * derived from the {@link #setApproximationError(double, double)}. The approximate
+	 * planning takes precedence over the incremental planning.
+	 * @param approximatePlanning True to estimate the boundaries from a sample of the data.
+	 */
+	public void setApproximatePlanning(boolean approximatePlanning){
+		this.approximatePlanning = approximatePlanning;
+		settingsVersion.incrementAndGet();
+	}
+
+	/**
+	 * Set the required error of the correlation level achieved by the estimated boundaries.
+	 * The error is bounded by the Hoeffding inequality, the bound achieved for each boundary
+	 * is reported by the {@link BoundaryValueHolder#getErrorBound()}.
+	 * @param errorBound The bound on the error of the correlation level. From the interval (0,1).
+	 * @param errorConfidence The probability with which the error stays within the bound.
+	 * From the interval (0,1).
+	 */
+	public void setApproximationError(double errorBound, double errorConfidence){
+		if(errorBound <= 0 || errorBound >= 1){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is out of the interval (0,1).", "errorBound"));
+		}
+		if(errorConfidence <= 0 || errorConfidence >= 1){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is out of the interval (0,1).", "errorConfidence"));
+		}
+		approximationErrorBound = errorBound;
+		approximationErrorConfidence = errorConfidence;
+		settingsVersion.incrementAndGet();
+	}
+
+	/**
+	 * Set whether only the label pairs whose second label is faulty are planned.
+	 * The boundaries of the other label pairs are computed ahead in the cycles
+	 * in which the {@link #analyze()} finds no failure to handle, a few label pairs
+	 * per cycle as given by the {@link #setPrefetchBudget(int)}. The label pairs whose
+	 * second label was faulty most recently are prefetched first, then the label
+	 * pairs planned longest ago. The prefetching runs on the executor given by the
+	 * {@link #setPrefetchExecutor(Executor)}.
+	 * @param lazyPlanning True to plan only the label pairs relevant to the current failures.
+	 */
+	public void setLazyPlanning(boolean lazyPlanning){
+		this.lazyPlanning = lazyPlanning;
+	}
+
+	/**
+	 * Set the maximal count of label pairs prefetched in a single idle cycle
+	 * when the lazy planning is enabled.
+	 * @param prefetchBudget The maximal count of label pairs prefetched in a single
+	 * idle cycle. 0 disables the prefetching.
+	 */
+	public void setPrefetchBudget(int prefetchBudget){
+		if(prefetchBudget < 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is negative.", "prefetchBudget"));
+		}
+		this.prefetchBudget = prefetchBudget;
+	}
+
+	/**
+	 * Set the executor the prefetching of the lazy planning runs on. The prefetching
+	 * holds the same lock as the {@link #monitor()}, {@link #analyze()}, {@link #plan()}
+	 * and {@link #execute()}, so these wait until the prefetching of at most {@link #setPrefetchBudget(int)} label
+	 * pairs finishes if they are called meanwhile. At most one prefetching is scheduled
+	 * at a time. The {@link ForkJoinPool#commonPool()} is used by default.
+	 * @param prefetchExecutor The executor the prefetching runs on. Null to prefetch
+	 * synchronously within the {@link #analyze()}, which then takes longer by the time
+	 * of the prefetching.
+	 */
+	public void setPrefetchExecutor(Executor prefetchExecutor){
+		this.prefetchExecutor = prefetchExecutor;
+	}
+
+	/**
+	 * Set the duration of the time slots the values are correlated within. The histories
+	 * created before the change keep downsampling by the previous duration.
+	 * @param timeSlotDuration The time slot duration in milliseconds.
+	 */
+	public void setTimeSlotDuration(long timeSlotDuration){
+		if(timeSlotDuration <= 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "timeSlotDuration"));
+		}
+		this.timeSlotDuration = timeSlotDuration;
+		settingsVersion.incrementAndGet();
+	}
+
+	/**
+	 * Keep coarse histories of the numeric knowledge fields with the given durations of
+	 * the time slots, e.g. 10 s and 60 s. The coarse histories hold the means of the values
+	 * within theirs time slots, so they can span a long time with a few values while
+	 * the histories of the individual values are limited to the recent window by the
+	 * {@link #setHistoryCapacity(int)} and {@link #setHistoryTimeHorizon(long)}.
+	 * The coarse histories are used by the planning if the {@link #setPlanningResolution(long)}
+	 * matches one of the durations. The existing coarse histories are discarded.
+	 * <p>
+	 * Only the numeric fields whose metric is a {@link DoubleMetric} are rolled up. A sample
+	 * older than the time slot being aggregated is dropped by the coarse histories, which
+	 * can happen to the samples given to the {@link #publish(Component, String, Object, long, boolean)}
+	 * out of order.
+	 * </p>
+	 * @param capacity The maximal count of time slots held in a single coarse history.
+	 * @param slotDurations The durations of the time slots of the coarse histories in milliseconds.
+	 */
+	public synchronized void setHistoryRollups(int capacity, long... slotDurations){
+		if(capacity < 1){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "capacity"));
+		}
+		if(slotDurations == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "slotDurations"));
+		}
+		for(long slotDuration : slotDurations){
+			if(slotDuration <= 0){
+				throw new IllegalArgumentException(String.format(
+						"The \"%s\" argument has to contain positive durations.", "slotDurations"));
+			}
+		}
+		rollupCapacity = capacity;
+		rollupDurations = slotDurations.clone();
+		rollups.clear();
+		settingsVersion.incrementAndGet();
+	}
+
+	/**
+	 * Set the duration of the time slots the correlation is planned within. If the coarse
+	 * histories with this duration are kept (see {@link #setHistoryRollups(int, long...)})
+	 * the planning runs on them. The histories of the individual values are grouped into
+	 * the time slots of the given duration otherwise.
+	 * @param planningResolution The duration of the time slots in milliseconds. 0 stands
+	 * for the time slot duration set by the {@link #setTimeSlotDuration(long)}.
+	 */
+	public void setPlanningResolution(long planningResolution){
+		if(planningResolution < 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is negative.", "planningResolution"));
+		}
+		this.planningResolution = planningResolution;
+		settingsVersion.incrementAndGet();
+	}
+
+	/**
+	 * Set the function that provides the keys identifying the components in the snapshots.
+	 * The keys have to be unique and stable across the restarts. The {@link Object#toString()}
+	 * of the components is used by default.
+	 * @param componentKey Provides the keys identifying the components.
+	 */
+	public void setComponentKey(Function<Component, String> componentKey){
+		if(componentKey == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "componentKey"));
+		}
+		this.componentKey = componentKey;
+	}
+
+	/**
+	 * Set the file the snapshots of the correlation state are written to. The snapshot
+	 * is written every given count of cycles and when the JVM shuts down. The shutdown
+	 * hook that writes the snapshot refers to this manager until the snapshots are
+	 * disabled by the {@link #stopSnapshots()} or by a null snapshot file.
+	 * <p>
+	 * Every snapshot rewrites all the numeric histories within the {@link #monitor()}.
+	 * The snapshot can't exceed 2 GB, so the histories should be bounded by the
+	 * {@link #setHistoryCapacity(int)} or the {@link #setHistoryTimeHorizon(long)}, as they
+	 * are not bounded by default. Once the histories outgrow the limit, every snapshot
+	 * fails and the failure is only reported to the standard error output.
+	 * </p>
+	 * @param snapshotFile The snapshot file. Null disables the snapshots.
+	 * @param snapshotInterval The count of the MAPE cycles between two snapshots.
+	 * 0 writes the snapshot only on shutdown.
+	 */
+	public synchronized void setSnapshotFile(Path snapshotFile, int snapshotInterval){
+		if(snapshotInterval < 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is negative.", "snapshotInterval"));
+		}
+		if(snapshotFile == null){
+			stopSnapshots();
+			return;
+		}
+		this.snapshotFile = snapshotFile;
+		this.snapshotInterval = snapshotInterval;
+
+		if(snapshotHook == null){
+			snapshotHook = new Thread(() -> {
+				Path file;
+				synchronized(this){
+					file = this.snapshotFile;
+				}
+				if(file != null){
+					try {
+						saveSnapshot(file);
+					} catch(IOException | RuntimeException e){
+						System.err.println(String.format("Failed to write the correlation snapshot %s: %s",
+								file, e.getMessage()));
+					}
+				}
+			}, "correlation-snapshot");
+			Runtime.getRuntime().addShutdownHook(snapshotHook);
+		}
+	}
+
+	/**
+	 * Stop writing the snapshots of the correlation state and remove the shutdown hook
+	 * that writes the snapshot. Has no effect if the snapshots are not written.
+	 * Can't be called while the JVM shuts down.
+	 */
+	public synchronized void stopSnapshots(){
+		snapshotFile = null;
+		snapshotInterval = 0;
+		if(snapshotHook != null){
+			Runtime.getRuntime().removeShutdownHook(snapshotHook);
+			snapshotHook = null;
+		}
+	}
+
+	/**
+	 * Write the snapshot of the numeric knowledge histories and the distance boundaries
+	 * into the given file.
+	 * @param file The snapshot file.
+	 * @throws IOException If the file can't be written.
+	 */
+	public synchronized void saveSnapshot(Path file) throws IOException {
+		CorrelationSnapshot.write(file, knowledgeHistoryOfAllComponents, distanceBounds, componentKey);
+	}
+
+	/**
+	 * Restore the correlation state from the given snapshot file. The distance boundaries
+	 * are restored right away. The histories of a component are decoded from the file
+	 * when the component is monitored for the first time, so they are available to the first
+	 * {@link #plan()} after the restore. The histories are created with the current capacity,
+	 * time horizon and eviction policy.
+	 * @param file The snapshot file.
+	 * @throws IOException If the file can't be read or is not a valid snapshot.
+	 */
+	public synchronized void restoreSnapshot(Path file) throws IOException {
+		CorrelationSnapshot snapshot = CorrelationSnapshot.read(file);
+		for(Map.Entry<LabelPair, BoundaryValueHolder> bound : snapshot.getBounds().entrySet()){
+			if(!distanceBounds.containsKey(bound.getKey())){
+				distanceBounds.put(bound.getKey(), bound.getValue());
+			}
+		}
+		restoredSnapshot = snapshot;
+	}
+
+	/**
+	 * Set the log the monitored samples are appended to. The samples of each monitoring
+	 * are committed to the log at its end. The log is not closed by the {@link CorrelationManager}.
+	 * Only the samples of the fields whose histories store the values as primitive doubles
+	 * are logged, i.e. the numeric fields with a {@link DoubleMetric} or with double values
+	 * while the columnar storage is enabled.
+	 * @param knowledgeLog The log of the samples. Null disables the logging.
+	 */
+	public synchronized void setKnowledgeLog(KnowledgeLog knowledgeLog){
+		this.knowledgeLog = knowledgeLog;
+	}
+
+	/**
+	 * Rebuild the histories from the given {@link KnowledgeLog}. The histories of a component
+	 * are attached to it when the component is monitored for the first time. They take
+	 * precedence over the histories restored from a snapshot. The histories are created with
+	 * the current capacity, time horizon, eviction policy and columnar storage setting.
+	 * @param file The log file.
+	 * @throws IOException If the log can't be read.
+	 */
+	public synchronized void replayKnowledgeLog(Path file) throws IOException {
+		replayedHistories.putAll(KnowledgeLog.replay(file, this::createRestoredHistory));
+	}
+
+	/**
+	 * Returns the histories of the given component replayed from the log or restored from the snapshot.
+	 * @param component The component.
+	 * @return The restored histories of the component. An empty map if neither the log nor
+	 * the snapshot contains the component.
+	 */
+	private Map<String, KnowledgeHistory> getRestoredHistories(Component component){
+		Map<String, KnowledgeHistory> histories = null;
+		if(!replayedHistories.isEmpty()){
+			histories = replayedHistories.remove(componentKey.apply(component));
+		}
+		if(histories == null && restoredSnapshot != null){
+			try {
+				histories = restoredSnapshot.getHistories(componentKey.apply(component),
+						this::createRestoredHistory);
+			} catch(IOException e){
+				System.err.println(String.format("Failed to restore the history of %s: %s",
+						component, e.getMessage()));
+				restoredSnapshot = null;
+			}
+		}
+		return histories == null ? new HashMap<>() : histories;
+	}
+
+	/**
+	 * Set whether the {@link #monitor()} polls the knowledge of the components provided
+	 * by the {@link ComponentManager}. If the polling is disabled the knowledge is collected
+	 * only from the samples given to the {@link #publish(Component, String, Object, long, boolean)}.
+	 * @param polling True to poll the knowledge of the components.
+	 */
+	public void setPolling(boolean polling){
+		this.polling = polling;
+	}
+
+	/**
+	 * Set whether the polled samples are dropped if they equal to the latest value of the history,
+	 * i.e. the knowledge field wasn't updated since the last monitoring. All the polled samples
+	 * are appended to the history by default. The planning skips the label pairs whose data
+	 * didn't change only if the duplicate samples are dropped, see {@link #getBoundaryCacheHits()}.
+	 * @param sampleDeduplication True to drop the samples that are already in the history.
+	 */
+	public void setSampleDeduplication(boolean sampleDeduplication){
+		this.sampleDeduplication = sampleDeduplication;
+	}
+
+	/**
+	 * Publish a sample of the knowledge of the given component. The sample is added
+	 * to the history by the next {@link #monitor()}. Can be called from any thread
+	 * concurrently with the MAPE loop, the samples are passed through a lock-free queue.
+	 * @param component The component whose knowledge was sampled.
+	 * @param label The label of the knowledge field.
+	 * @param value The value of the knowledge field.
+	 * @param timestamp The time when the value has been obtained.
+	 * @param isOperational Whether the sensor that provided the value works.
+	 */
+	public void publish(Component component, String label, Object value, long timestamp,
+			boolean isOperational){
+		if(component == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "component"));
+		}
+		if(label == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "label"));
+		}
+
+		CorrelationMetadataWrapper<Object> field = new CorrelationMetadataWrapper<>(value, label, timestamp);
+		if(!isOperational){
+			field.malfunction();
+		}
+		publishedSamples.add(new PublishedSample(component, field));
+	}
+
+	/**
+	 * Publish the current value of the given knowledge field of the given component.
+	 * The wrapper is copied, so it can be updated right after the call.
+	 * @param component The component whose knowledge was sampled.
+	 * @param field The knowledge field.
+	 * @see #publish(Component, String, Object, long, boolean)
+	 */
+	public void publish(Component component, CorrelationMetadataWrapper<?> field){
+		if(field == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "field"));
+		}
+		publish(component, field.getName(), field.getValue(), field.getTimestamp(), field.isOperational());
+	}
+
+	/**
+	 * For quick debugging.
+	 */
+	public synchronized void printHistory(){
+		if(!dumpValues){
+			return;
+		}
+		
+		StringBuilder b = new StringBuilder(1024);
+		b.append("Printing global history...\n");
+
+		for (Component component : knowledgeHistoryOfAllComponents.keySet()) {
+
+			b.append("Component " + component.toString() + "\n");
+
+			Map<String, KnowledgeHistory> componentHistory =
+					knowledgeHistoryOfAllComponents.get(component);
+			if(componentHistory == null){
+				System.out.println(String.format("Knowledge of %s not found.", component.toString()));
+				continue;
+			}
+			for (String field : componentHistory.keySet()) {
+				b.append("\t" + field + ":\n");
+
+				b.append("\ttime: ");
+				KnowledgeHistory values = componentHistory.get(field);
+				for (int i = 0; i < values.size(); i++) {
+					b.append(values.getTimestamp(i) + ", ");
+				}
+				b.delete(b.length()-2, b.length());
+				b.append("\n\tvalues: ");
+				for (int i = 0; i < values.size(); i++) {
+					b.append(values.getValue(i) + ", ");
+				}
+				b.delete(b.length()-2, b.length());
+				b.append("\n\n");
+			}
+
+		}
+
+		b.append("Printing correlation bounds...\n");
+
+		for(LabelPair labels : distanceBounds.keySet()){
+			b.append(String.format("%s -> %s : %.2f\n",
+					labels.getFirstLabel(),
+					labels.getSecondLabel(),
+					distanceBounds.get(labels).getBoundary()));
+		}
+
+		System.out.println(b.toString());
+	}
+
+	@Override
+	public synchronized void monitor() {
+		cycle++;
+		valueIndexes.clear();
+		if(polling){
+			for(Component c : componentManager.getComponents()){
+				Map<String, KnowledgeHistory> memberKnowledgeHistory = getComponentHistory(c);
+				String key = knowledgeLog == null ? null : componentKey.apply(c);
+
+				Map<String, Object> knowledge = c.getKnowledge();
+				for(String knowlegeField : knowledge.keySet()){
+					Object o = knowledge.get(knowlegeField);
+					// ignore fields that are not specified as CorrelationMetadataWrapper instances
+					if (o instanceof CorrelationMetadataWrapper) {
+						CorrelationMetadataWrapper<?> field = (CorrelationMetadataWrapper<?>) o;
+						if(addFieldToHistory(c, memberKnowledgeHistory, field, sampleDeduplication)){
+							ingestedSamples.incrementAndGet();
+							addFieldToRollups(c, field);
+							if(knowledgeLog != null){
+								logField(key, memberKnowledgeHistory, field);
+							}
+						}
+					} else if(dumpValues){
+						System.out.println(String.format(
+								"Correlation manager is ignoring the field \"%s\" because it is not an instance of \"%s\"",
+								knowlegeField, CorrelationMetadataWrapper.class.getName()));
+					}
+				}
+			}
+		}
+
+		PublishedSample sample;
+		while((sample = publishedSamples.poll()) != null){
+			Map<String, KnowledgeHistory> histories = getComponentHistory(sample.component);
+			if(addFieldToHistory(sample.component, histories, sample.field, false)){
+				ingestedSamples.incrementAndGet();
+				addFieldToRollups(sample.component, sample.field);
+				if(knowledgeLog != null){
+					logField(componentKey.apply(sample.component), histories, sample.field);
+				}
+			}
+		}
+
+		if(knowledgeLog != null){
+			try {
+				knowledgeLog.commit();
+			} catch(IOException e){
+				System.err.println(String.format("Failed to commit the knowledge log: %s", e.getMessage()));
+			}
+		}
+
+		if(snapshotFile != null && snapshotInterval > 0 && cycle % snapshotInterval == 0){
+			try {
+				saveSnapshot(snapshotFile);
+			} catch(IOException e){
+				System.err.println(String.format("Failed to write the correlation snapshot %s: %s",
+						snapshotFile, e.getMessage()));
+			}
+		}
+	}
+	
+	/**
+	 * Returns the index of the current values of the given knowledge field across all
+	 * the components. The current value of a component is the latest value in its history,
+	 * if it is operational and numeric. The index is built on the first call after
+	 * the monitoring and can be used by the {@link ConnectorManager} to find the members
+	 * of a connector by the {@link CorrelationFilter#getMembers(KnowledgeValueIndex, double)}.
+	 * Only the components currently provided by the {@link ComponentManager} are indexed.
+	 * @param label The label of the knowledge field.
+	 * @return The index of the current values of the given knowledge field.
+	 */
+	public synchronized KnowledgeValueIndex getValueIndex(String label){
+		KnowledgeValueIndex index = valueIndexes.get(label);
+		if(index == null){
+			Set<? extends Component> currentComponents = componentManager.getComponents();
+			Component[] components = new Component[currentComponents.size()];
+			double[] values = new double[currentComponents.size()];
+			int count = 0;
+			for(Component component : currentComponents){
+				Map<String, KnowledgeHistory> histories = knowledgeHistoryOfAllComponents.get(component);
+				KnowledgeHistory history = histories == null ? null : histories.get(label);
+				if(history == null || history.size() == 0 || !history.isOperational(history.size() - 1)){
+					continue;
+				}
+				Object value = history.getValue(history.size() - 1);
+				if(value instanceof Number){
+					components[count] = component;
+					values[count] = ((Number) value).doubleValue();
+					count++;
+				}
+			}
+			index = new KnowledgeValueIndex(label, components, values, count);
+			valueIndexes.put(label, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the field histories of the given component. The histories are created
+	 * or restored when the component is seen for the first time.
+	 * 
+	 * @param component
+	 *            the component
+	 * @return the field histories of the component
+	 */
+	private Map<String, KnowledgeHistory> getComponentHistory(final Component component) {
+		Map<String, KnowledgeHistory> histories = knowledgeHistoryOfAllComponents.get(component);
+		if (histories == null) {
+			histories = getRestoredHistories(component);
+			knowledgeHistoryOfAllComponents.put(component, histories);
+			for (String label : histories.keySet()) {
+				knowledgeIndex.add(registry.getComponentId(component), registry.getLabelId(label));
+			}
+		}
+		return histories;
+	}
+
+	/**
+	 * Adds field to component field history.
+	 * 
+	 * @param component
+	 *            the component holding the field
+	 * @param histories
+	 *            component field histories
+	 * @param field
+	 *            field value
+	 * @param deduplicate
+	 *            whether to drop the value if it is the latest value of the history
+	 * @return true if the value was added to the history
+	 */
+	private boolean addFieldToHistory(final Component component, final Map<String, KnowledgeHistory> histories,
+			final CorrelationMetadataWrapper<?> field, final boolean deduplicate) {
+		KnowledgeHistory fieldHistory = histories.get(field.getName());
+		if (fieldHistory == null) {
+			fieldHistory = createHistory(field);
+			histories.put(field.getName(), fieldHistory);
+			knowledgeIndex.add(registry.getComponentId(component), registry.getLabelId(field.getName()));
+		} else if (deduplicate && fieldHistory.isLatest(
+				field.getValue(), field.getTimestamp(), field.isOperational())) {
+			return false;
+		}
+		fieldHistory.add(field);
+		return true;
+	}
+
+	/**
+	 * Adds field to the coarse histories of the component field, if the value is numeric
+	 * and the metric of the field is a {@link DoubleMetric}, so the means of the values
+	 * make sense to the metric.
+	 * 
+	 * @param component
+	 *            the component holding the field
+	 * @param field
+	 *            field value
+	 */
+	private void addFieldToRollups(final Component component, final CorrelationMetadataWrapper<?> field) {
+		if (rollupDurations.length == 0 || !hasDoubleMetric(field)) {
+			return;
+		}
+		Map<String, KnowledgeRollup[]> componentRollups = rollups.get(component);
+		if (componentRollups == null) {
+			componentRollups = new HashMap<>();
+			rollups.put(component, componentRollups);
+		}
+		KnowledgeRollup[] fieldRollups = componentRollups.get(field.getName());
+		if (fieldRollups == null) {
+			fieldRollups = new KnowledgeRollup[rollupDurations.length];
+			for (int i = 0; i < rollupDurations.length; i++) {
+				fieldRollups[i] = new KnowledgeRollup(rollupDurations[i], rollupCapacity, Long.MAX_VALUE);
+			}
+			componentRollups.put(field.getName(), fieldRollups);
+		}
+		double value = ((Number) field.getValue()).doubleValue();
+		for (KnowledgeRollup rollup : fieldRollups) {
+			rollup.add(value, field.getTimestamp(), field.isOperational());
+		}
+	}
+
+	/**
+	 * Appends the field value to the {@link #knowledgeLog} if the history of the field stores
+	 * the values as primitive doubles, so that the replayed values are of the same kind.
+	 * 
+	 * @param component
+	 *            the key of the component holding the field
+	 * @param histories
+	 *            the field histories of the component
+	 * @param field
+	 *            field value
+	 */
+	private void logField(final String component, final Map<String, KnowledgeHistory> histories,
+			final CorrelationMetadataWrapper<?> field) {
+		if (!histories.get(field.getName()).isNumeric()) {
+			return;
+		}
+		try {
+			knowledgeLog.append(component, field.getName(), field.getValue(),
+					field.getTimestamp(), field.isOperational());
+		} catch(IOException e){
+			System.err.println(String.format("Failed to append to the knowledge log: %s", e.getMessage()));
+		}
+	}
+
+	/**
+	 * Creates an empty history suitable for the values of the given field.
+	 * The columnar {@link NumericKnowledgeHistory} is used for numeric fields if the
+	 * {@link #columnarStorage} is enabled and storing the values as primitive doubles
+	 * doesn't alter what the field metric receives. The {@link ObjectKnowledgeHistory}
+	 * is used otherwise.
+	 * 
+	 * @param field
+	 *            the first value of the field
+	 * @return the empty history of the field
+	 */
+	private KnowledgeHistory createHistory(final CorrelationMetadataWrapper<?> field) {
+		Object value = field.getValue();
+		if (columnarStorage && (value instanceof Double || hasDoubleMetric(field))) {
+			return new NumericKnowledgeHistory(historyCapacity, historyTimeHorizon,
+					historyEvictionPolicy, timeSlotDuration);
+		}
+		return new ObjectKnowledgeHistory(historyCapacity, historyTimeHorizon,
+				historyEvictionPolicy, timeSlotDuration);
+	}
+
+	/**
+	 * Indicates whether the value of the given field is numeric and the metric of the field
+	 * is a {@link DoubleMetric}, i.e. the values can be turned into primitive doubles
+	 * without altering what the metric receives.
+	 * 
+	 * @param field
+	 *            field value
+	 * @return true if the field is numeric with a {@link DoubleMetric}
+	 */
+	private boolean hasDoubleMetric(final CorrelationMetadataWrapper<?> field) {
+		return field.getValue() instanceof Number
+				&& metadata.getMetric(field.getName()) instanceof DoubleMetric;
+	}
+
+	/**
+	 * Creates an empty history for the values restored from the {@link KnowledgeLog}
+	 * or the {@link CorrelationSnapshot}. Only the values of the histories created
+	 * as {@link NumericKnowledgeHistory} are logged and stored in the snapshots, so
+	 * the restored values are doubles. They are stored in the columnar history if the
+	 * {@link #columnarStorage} is enabled.
+	 * 
+	 * @return the empty history of the restored field
+	 */
+	private KnowledgeHistory createRestoredHistory() {
+		if (columnarStorage) {
+			return new NumericKnowledgeHistory(historyCapacity, historyTimeHorizon,
+					historyEvictionPolicy, timeSlotDuration);
+		}
+		return new ObjectKnowledgeHistory(historyCapacity, historyTimeHorizon,
+				historyEvictionPolicy, timeSlotDuration);
+	}
+
+	/**
+	 * Check whether the new ensemble inferred by correlation is needed.
+	 * 
+	 * @returns true if the ensemble is needed. false otherwise.
+	 */
+	@Override
+	public synchronized boolean analyze() {
+		for(Component component : componentManager.getComponents()){
+			Set<String> failedKnowledge = component.getFaultyKnowledge();
+			for(String label : failedKnowledge){
+				faultyCycles.put(label, cycle);
+			}
+			if(!failedKnowledge.isEmpty()
+					&& (!handledFailures.containsKey(component)
+							|| !handledFailures.get(component).containsAll(failedKnowledge))){
+				analyzedFailures.put(component, failedKnowledge); // TODO: check the condition
+			}
+		}
+		
+		if(analyzedFailures.isEmpty()){
+			if(lazyPlanning && prefetchBudget > 0){
+				schedulePrefetch();
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Method that measures the correlation between the data in the system
+	 */
+	@Override
+	public synchronized void plan() {
+		if(verbose){
+			System.out.println("Correlation process started...");
+		}
+
+		KnowledgeHistoryStore history = createHistoryStore();
+		long[] labelPairs = history.getLabelPairs();
+		if(lazyPlanning){
+			labelPairs = getFaultyLabelPairs(labelPairs);
+		}
+		planLabelPairs(history, labelPairs);
+	}
+
+	/**
+	 * Builds the snapshot of the histories to be planned on in the planning resolution.
+	 * The coarse histories are used if they are kept in the planning resolution.
+	 * Package-private only so that the benchmarks can measure this stage of the planning.
+	 * @return The snapshot of the histories to be planned on.
+	 */
+	KnowledgeHistoryStore createHistoryStore(){
+		long resolution = planningResolution > 0 ? planningResolution : timeSlotDuration;
+		for(int i = 0; i < rollupDurations.length; i++){
+			if(rollupDurations[i] == resolution){
+				Map<Component, Map<String, KnowledgeHistory>> coarseHistory = new HashMap<>();
+				for(Map.Entry<Component, Map<String, KnowledgeRollup[]>> component : rollups.entrySet()){
+					Map<String, KnowledgeHistory> histories = new HashMap<>();
+					for(Map.Entry<String, KnowledgeRollup[]> field : component.getValue().entrySet()){
+						histories.put(field.getKey(), field.getValue()[i].getHistory());
+					}
+					coarseHistory.put(component.getKey(), histories);
+				}
+				return new KnowledgeHistoryStore(coarseHistory, registry, resolution);
+			}
+		}
+		return new KnowledgeHistoryStore(knowledgeHistoryOfAllComponents, registry, resolution, knowledgeIndex);
+	}
+
+	/**
+	 * Run the {@link #prefetch()} on the {@link #prefetchExecutor} unless a prefetching
+	 * is already pending. Prefetch synchronously if there is no executor.
+	 */
+	private void schedulePrefetch(){
+		Executor executor = prefetchExecutor;
+		if(executor == null){
+			prefetch();
+			return;
+		}
+		if(!prefetchPending.compareAndSet(false, true)){
+			return;
+		}
+		try{
+			executor.execute(() -> {
+				try{
+					prefetch();
+				} finally {
+					prefetchPending.set(false);
+				}
+			});
+		} catch(RuntimeException e){
+			prefetchPending.set(false);
+			throw e;
+		}
+	}
+
+	/**
+	 * Compute the boundaries of a few label pairs ahead of the failures
+	 * of theirs second labels.
+	 */
+	private synchronized void prefetch(){
+		KnowledgeHistoryStore history = createHistoryStore();
+		long[] labelPairs = getPrefetchedLabelPairs(history.getLabelPairs());
+		if(labelPairs.length == 0){
+			return;
+		}
+		if(verbose){
+			System.out.println(String.format("Prefetching %d label pairs...", labelPairs.length));
+		}
+		planLabelPairs(history, labelPairs);
+	}
+
+	/**
+	 * Returns the label pairs whose second label is faulty in the analyzed failures.
+	 * @param labelPairs The keys of the label pairs to choose from.
+	 * @return The keys of the label pairs whose second label is faulty.
+	 */
+	private long[] getFaultyLabelPairs(long[] labelPairs){
+		Set<String> faultyLabels = new HashSet<>();
+		for(Set<String> failures : analyzedFailures.values()){
+			faultyLabels.addAll(failures);
+		}
+
+		long[] faultyPairs = new long[labelPairs.length];
+		int count = 0;
+		for(long labels : labelPairs){
+			if(faultyLabels.contains(getSecondLabel(labels))){
+				faultyPairs[count++] = labels;
+			}
+		}
+		return Arrays.copyOf(faultyPairs, count);
+	}
+
+	/**
+	 * Returns at most {@link #prefetchBudget} label pairs to be prefetched. The label pairs
+	 * whose second label was faulty most recently come first, then the label pairs
+	 * planned longest ago. The label pairs planned in the current cycle are omitted.
+	 * @param labelPairs The keys of the label pairs to choose from.
+	 * @return The keys of the label pairs to be prefetched.
+	 */
+	private long[] getPrefetchedLabelPairs(long[] labelPairs){
+		List<long[]> candidates = new ArrayList<>();
+		for(long labels : labelPairs){
+			Long planned = plannedCycles.get(labels);
+			if(planned != null && planned == cycle){
+				continue;
+			}
+			Long faulty = faultyCycles.get(getSecondLabel(labels));
+			candidates.add(new long[]{labels,
+					faulty == null ? -1 : faulty,
+					planned == null ? -1 : planned});
+		}
+		Collections.sort(candidates, (a, b) -> a[1] != b[1]
+				? Long.compare(b[1], a[1])
+				: Long.compare(a[2], b[2]));
+
+		long[] prefetched = new long[Math.min(prefetchBudget, candidates.size())];
+		for(int i = 0; i < prefetched.length; i++){
+			prefetched[i] = candidates.get(i)[0];
+		}
+		return prefetched;
+	}
+
+	/**
+	 * Returns the count of the label pairs whose boundaries were not computed again
+	 * by the planning because neither theirs data nor the metadata and settings
+	 * changed since the boundaries were computed. Every polled sample changes the data
+	 * unless the {@link #setSampleDeduplication(boolean)} is enabled, so with the default
+	 * polling the label pairs are skipped only by the planning repeated without a monitoring.
+	 * @return The count of the label pairs skipped by the planning.
+	 */
+	public long getBoundaryCacheHits(){
+		return boundaryCacheHits.get();
+	}
+
+	/**
+	 * Returns the count of the label pairs whose boundaries were computed by the planning.
+	 * @return The count of the label pairs computed by the planning.
+	 */
+	public long getBoundaryCacheMisses(){
+		return boundaryCacheMisses.get();
+	}
+
+	/**
+	 * Returns the counts of the samples ingested into the histories, the label pairs
+	 * planned and skipped by the planning and the calls made to reconfigure the system.
+	 * @return The counts of the items processed by the correlation.
+	 */
+	@Override
+	public Map<String, Long> getItemCounts(){
+		Map<String, Long> counts = new HashMap<>();
+		counts.put("samplesIngested", ingestedSamples.get());
+		counts.put("labelPairsPlanned", boundaryCacheMisses.get());
+		counts.put("labelPairsSkipped", boundaryCacheHits.get());
+		counts.put("reconfigurationCalls", reconfigurationCalls.get());
+		return counts;
+	}
+
+	/**
+	 * Computes and stores the boundaries of the given label pairs. The label pairs whose
+	 * boundaries were computed from the same versions of the data, metadata and settings
+	 * are skipped.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param plannedPairs The keys of the label pairs to be planned.
+	 */
+	private void planLabelPairs(final KnowledgeHistoryStore history, final long[] plannedPairs){
+		// Skip the label pairs whose inputs haven't changed
+		final long inputSettings = settingsVersion.get() + metadata.getVersion();
+		final long[] dataVersions = new long[plannedPairs.length];
+		final long[] labelPairs;
+		int changedCnt = 0;
+		long[] changedPairs = new long[plannedPairs.length];
+		for(long labels : plannedPairs){
+			long dataVersion = history.getDataVersion(labels);
+			BoundaryValueHolder boundary = distanceBounds.get(registry.getLabelPair(labels));
+			if(boundary != null && boundary.isComputedFrom(dataVersion, inputSettings)){
+				plannedCycles.put(labels, cycle);
+			} else {
+				dataVersions[changedCnt] = dataVersion;
+				changedPairs[changedCnt++] = labels;
+			}
+		}
+		boundaryCacheHits.addAndGet(plannedPairs.length - changedCnt);
+		boundaryCacheMisses.addAndGet(changedCnt);
+		labelPairs = Arrays.copyOf(changedPairs, changedCnt);
+
+		final BoundaryEstimate[] boundaries = new BoundaryEstimate[labelPairs.length];
+		if(incrementalPlanning){
+			// The distances collected in different time slots can't be combined
+			if(incrementalSlotDuration != history.getTimeSlotDuration()){
+				labelPairDistances.clear();
+				incrementalSlotDuration = history.getTimeSlotDuration();
+			}
+			// Prepare the state in advance so the parallel tasks don't modify the map
+			for(long labels : labelPairs){
+				double confidenceLevel = metadata.getConfidenceLevel(getSecondLabel(labels));
+				if(!labelPairDistances.containsKey(labels)){
+					labelPairDistances.put(labels, new LabelPairDistances(confidenceLevel));
+				} else {
+					labelPairDistances.get(labels).setConfidenceLevel(confidenceLevel);
+				}
+			}
+		}
+
+		if(onlinePlanning && !approximatePlanning){
+			// The time slots of different durations can't be combined
+			if(onlineSlotDuration != history.getTimeSlotDuration()){
+				onlineLevels.clear();
+				onlineSlotDuration = history.getTimeSlotDuration();
+			}
+			// Prepare the estimators in advance so the parallel tasks don't modify the map
+			for(long labels : labelPairs){
+				if(!onlineLevels.containsKey(labels)){
+					KnowledgeMetadata filterMetadata = metadata.getMetadata(getFirstLabel(labels));
+					double bucketWidth = filterMetadata != null && filterMetadata.getBound() > 0
+							? filterMetadata.getBound() / ONLINE_BUCKETS_PER_BOUND
+							: 1;
+					onlineLevels.put(labels, new DecayedCorrelationLevel(registry.getLabelPair(labels),
+							metadata, bucketWidth, ONLINE_BUCKET_COUNT, onlineHalfLife));
+				}
+			}
+		}
+
+		final List<List<DistancePair>> matrixDistances;
+		if(matrixPlanning && !approximatePlanning && !onlinePlanning && !incrementalPlanning){
+			CorrelationMatrix matrix = new CorrelationMatrix(history, metadata, labelPairs);
+			matrixDistances = planningPool == null
+					? matrix.compute()
+					: planningPool.invoke(ForkJoinTask.adapt(matrix::compute));
+		} else {
+			matrixDistances = null;
+		}
+
+		if(planningPool == null){
+			for(int i = 0; i < labelPairs.length; i++){
+				boundaries[i] = computeBoundary(history, labelPairs[i],
+						matrixDistances == null ? null : matrixDistances.get(i));
+			}
+		} else {
+			planningPool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					List<RecursiveAction> tasks = new ArrayList<>();
+					for(int i = 0; i < labelPairs.length; i++){
+						final int index = i;
+						tasks.add(new RecursiveAction() {
+							private static final long serialVersionUID = 1L;
+
+							@Override
+							protected void compute() {
+								boundaries[index] = computeBoundary(history, labelPairs[index],
+										matrixDistances == null ? null : matrixDistances.get(index));
+							}
+						});
+					}
+					invokeAll(tasks);
+				}
+			});
+		}
+
+		for(int i = 0; i < labelPairs.length; i++){
+			LabelPair labels = registry.getLabelPair(labelPairs[i]);
+			double boundary = boundaries[i].boundary;
+			if(verbose){
+				System.out.println(String.format("%s -> %s", labels.getFirstLabel(), labels.getSecondLabel()));
+				System.out.println(String.format("Boundary: %f", boundary));
+			}
+			if(distanceBounds.containsKey(labels)){
+				// Update existing boundary (automatically handles "hasChanged" flag)
+				distanceBounds.get(labels).setBoundary(boundary);
+			} else {
+				// Create new boundary value (by default "hasChanged" flag is true
+				distanceBounds.put(labels, new BoundaryValueHolder(boundary));
+			}
+			distanceBounds.get(labels).setError(boundaries[i].errorBound, boundaries[i].errorConfidence);
+			distanceBounds.get(labels).setComputedFrom(dataVersions[i], inputSettings);
+			plannedCycles.put(labelPairs[i], cycle);
+		}
+	}
+
+	/**
+	 * Deploys, activates and deactivates correlation ensembles based on the current
+	 * correlation of the data in the system.
+	 */
+	@Override
+	public synchronized void execute() {
+		if(verbose){
+			System.out.println("Correlation ensembles management process started...");
+		}
+
+		for(Component component : analyzedFailures.keySet()){
+			for(String faultyKnowledge : analyzedFailures.get(component)){
+				for(LabelPair labels : distanceBounds.keySet()){
+					final String correlationFilter = labels.getFirstLabel();
+					final String correlationSubject = labels.getSecondLabel();
+					final BoundaryValueHolder distance = distanceBounds.get(labels);
+					
+					if(!correlationSubject.equals(faultyKnowledge)){
+						// Consider only faulty knowledge
+						continue;
+					}
+					
+					final String connectorName = correlationFilter + "_" + correlationSubject;
+					final MediatedKnowledge mediatedKnowledge = new MediatedKnowledge(
+							correlationFilter, correlationSubject);
+					if (!distance.isValid()) {
+						if(verbose && deployedConnectors.isDeployed(mediatedKnowledge)){
+							System.out.println(String.format("Undeploying ensemble %s",	connectorName));
+						}
+						// Undeploy the ensemble if the meta-adaptation is stopped or the correlation between the data is not reliable
+						deployedConnectors.undeploy(mediatedKnowledge);
+					} else if (distance.hasChanged()) {
+						// Re-deploy the ensemble only if the distance has changed since the last time and if it is valid						
+						if(verbose){
+							System.out.println(String.format("Deploying ensemble %s", connectorName));
+						}
+						// Add ports to the failed component first and then to the other components
+						List<Component> components = new ArrayList<>();
+						components.add(component);
+						for(Component otherComponent : componentManager.getComponents()){
+							if(!otherComponent.equals(component)){
+								components.add(otherComponent);
+							}
+						}
+						deployedConnectors.deploy(mediatedKnowledge, metadata.getMetadata(correlationFilter),
+								distance.getBoundary(), components);
+					
+						// Mark the boundary as !hasChanged since the new value is used
+						distanceBounds.get(labels).boundaryUsed();
+					} else if(verbose){
+						System.out.println(String.format(
+								"Omitting deployment of ensemble %s since the bound hasn't changed (much).", connectorName));
+					}
+				}
+			}
+		}
+
+		// Apply the changes at once
+		int calls = deployedConnectors.commit();
+		reconfigurationCalls.addAndGet(calls);
+		if(verbose){
+			System.out.println(String.format("Reconfiguration made %d calls.", calls));
+		}
+	}
+
+	/**
+	 * Returns the first label of the given label pair.
+	 * @param labels The key of the label pair created by the {@link KnowledgeRegistry#pairKey(int, int)}.
+	 * @return The first label of the given label pair.
+	 */
+	private String getFirstLabel(long labels){
+		return registry.getLabel(KnowledgeRegistry.firstId(labels));
+	}
+
+	/**
+	 * Returns the second label of the given label pair.
+	 * @param labels The key of the label pair created by the {@link KnowledgeRegistry#pairKey(int, int)}.
+	 * @return The second label of the given label pair.
+	 */
+	private String getSecondLabel(long labels){
+		return registry.getLabel(KnowledgeRegistry.secondId(labels));
+	}
+
+	/**
+	 * Returns all the pairs of the given components. The ordering of the components
+	 * in the pair doesn't matter, therefore no two pairs with inverse ordering of the
+	 * same two components are returned. As well as no pair made of a single component
+	 * is returned.
+	 * Package-private only so that the benchmarks can measure this stage of the planning.
+	 * @param components The IDs of the components in ascending order.
+	 * @return The keys of the component pairs created by the {@link KnowledgeRegistry#pairKey(int, int)}.
+	 * The smaller component ID comes first.
+	 */
+	long[] getComponentPairs(int[] components){
+		long[] componentPairs = new long[components.length * (components.length - 1) / 2];
+
+		int count = 0;
+		for(int i = 0 ; i < components.length; i++){
+			for(int j = i+1; j < components.length; j++){
+				componentPairs[count++] = KnowledgeRegistry.pairKey(components[i], components[j]);
+			}
+		}
+
+		return componentPairs;
+	}
+
+	/**
+	 * Returns a list of knowledge values identified by given labels from given components.
+	 * Package-private only so that the benchmarks can measure this stage of the planning.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param components A pair of components containing the given pair of knowledge fields.
+	 * @param labels The pair knowledge fields the values will be extracted from.
+	 * @param afterSlot Only the values from the time slots following this one are extracted.
+	 * @return The list of knowledge values identified by given labels from given components.
+	 */
+	List<KnowledgeQuadruple> extractKnowledgeHistory(
+			KnowledgeHistoryStore history,
+			long components,
+			long labels,
+			long afterSlot){
+
+		int component1 = KnowledgeRegistry.firstId(components);
+		int component2 = KnowledgeRegistry.secondId(components);
+		int label1 = KnowledgeRegistry.firstId(labels);
+		int label2 = KnowledgeRegistry.secondId(labels);
+		long slotDuration = history.getTimeSlotDuration();
+		TimeSlotIndex c1Values1 = history.getHistory(component1, label1).getTimeSlotIndex(slotDuration);
+		TimeSlotIndex c1Values2 = history.getHistory(component1, label2).getTimeSlotIndex(slotDuration);
+		TimeSlotIndex c2Values1 = history.getHistory(component2, label1).getTimeSlotIndex(slotDuration);
+		TimeSlotIndex c2Values2 = history.getHistory(component2, label2).getTimeSlotIndex(slotDuration);
+
+		List<KnowledgeQuadruple> knowledgeVectors = KnowledgeAligner.align(
+				c1Values1, c1Values2, c2Values1, c2Values2, afterSlot);
+		if(verbose){
+			if(knowledgeVectors.isEmpty()){
+				System.out.println(String.format("Correlation for [%s:%s]{%s -> %s} Skipped",
+						registry.getComponent(component1), registry.getComponent(component2),
+						getFirstLabel(labels), getSecondLabel(labels)));
+			}
+			for(KnowledgeQuadruple values : knowledgeVectors){
+				System.out.println(String.format("Correlation for [%s:%s]{%s -> %s}(%d)",
+					registry.getComponent(component1), registry.getComponent(component2),
+					getFirstLabel(labels), getSecondLabel(labels), values.timeSlot));
+			}
+		}
+
+		return knowledgeVectors;
+	}
+
+	/**
+	 * Computes the distance boundary of the knowledge identified by the first label in the given labels.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param labels The pair knowledge fields the boundary is computed for.
+	 * @param distances The distances of the given labels computed in advance by the
+	 * {@link CorrelationMatrix}. Null if they have to be computed.
+	 * @return The distance boundary of the knowledge identified by the first label in the given labels.
+	 */
+	private BoundaryEstimate computeBoundary(
+			KnowledgeHistoryStore history,
+			long labels,
+			List<DistancePair> distances){
+		if(approximatePlanning){
+			return estimateBoundary(history, labels);
+		}
+		if(onlinePlanning){
+			return new BoundaryEstimate(updateOnlineLevel(history, labels).getDistanceBoundary(), 0, 1);
+		}
+		if(incrementalPlanning){
+			return new BoundaryEstimate(updateDistances(history, labels).getDistanceBoundary(), 0, 1);
+		}
+		if(distances == null){
+			distances = computeDistances(history, labels);
+		}
+		return new BoundaryEstimate(getDistanceBoundary(distances, labels), 0, 1);
+	}
+
+	/**
+	 * Estimates the distance boundary of the knowledge identified by the first label in the given labels
+	 * from a sample of the data. The component pairs are sampled uniformly without enumerating all of them.
+	 * The distances of the sampled component pairs are streamed through a reservoir of the size required
+	 * to satisfy the {@link #approximationErrorBound} with the {@link #approximationErrorConfidence}.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param labels The pair knowledge fields the boundary is estimated for.
+	 * @return The estimated distance boundary together with the bound on its error.
+	 */
+	private BoundaryEstimate estimateBoundary(
+			KnowledgeHistoryStore history,
+			long labels){
+		double logTerm = Math.log(2 / (1 - approximationErrorConfidence));
+		int sampleSize = (int) Math.ceil(logTerm / (2 * approximationErrorBound * approximationErrorBound));
+
+		long[] componentPairs = sampleComponentPairs(history.getComponents(labels), sampleSize);
+		long[] afterSlots = new long[componentPairs.length];
+		Arrays.fill(afterSlots, Long.MIN_VALUE);
+		List<List<DistancePair>> newDistances = new ArrayList<>(
+				Collections.nCopies(componentPairs.length, (List<DistancePair>) null));
+		collectDistances(history, componentPairs, labels, afterSlots, newDistances);
+
+		// Reservoir sampling of the time slots across all the sampled component pairs
+		List<DistancePair> reservoir = new ArrayList<>(sampleSize);
+		long seen = 0;
+		for(List<DistancePair> distances : newDistances){
+			for(DistancePair distance : distances){
+				seen++;
+				if(reservoir.size() < sampleSize){
+					reservoir.add(distance);
+				} else {
+					long slot = (long) (random.nextDouble() * seen);
+					if(slot < sampleSize){
+						reservoir.set((int) slot, distance);
+					}
+				}
+			}
+		}
+
+		Collections.sort(reservoir);
+		int index = getDistanceBoundaryIndex(reservoir, labels);
+		if(index < 0){
+			return new BoundaryEstimate(Double.NaN, 0, 1);
+		}
+		// The correlation level at the boundary is measured from the distances preceding it
+		double errorBound = index == 0 ? 1 : Math.min(1, Math.sqrt(logTerm / (2 * index)));
+		if(verbose){
+			System.out.println(String.format("Boundary of %s -> %s estimated from %d of %d distances, error %f",
+					getFirstLabel(labels), getSecondLabel(labels), reservoir.size(), seen, errorBound));
+		}
+		return new BoundaryEstimate(reservoir.get(index).distance, errorBound, approximationErrorConfidence);
+	}
+
+	/**
+	 * Returns a uniform sample of the pairs of the given components. The pairs are
+	 * enumerated only if the sample covers a substantial part of them.
+	 * @param components The IDs of the components in ascending order.
+	 * @param sampleSize The maximal count of pairs in the sample.
+	 * @return The keys of the sampled component pairs. The smaller component ID comes first.
+	 */
+	private long[] sampleComponentPairs(int[] components, int sampleSize){
+		long pairCount = (long) components.length * (components.length - 1) / 2;
+		if(pairCount <= 2L * sampleSize){
+			long[] componentPairs = getComponentPairs(components);
+			int count = Math.min(componentPairs.length, sampleSize);
+			// Partial Fisher-Yates shuffle of the first count pairs
+			for(int i = 0; i < count; i++){
+				int j = i + random.nextInt(componentPairs.length - i);
+				long pair = componentPairs[i];
+				componentPairs[i] = componentPairs[j];
+				componentPairs[j] = pair;
+			}
+			return count == componentPairs.length
+					? componentPairs
+					: Arrays.copyOf(componentPairs, count);
+		}
+
+		LongObjectMap<Boolean> sampled = new LongObjectMap<>();
+		long[] componentPairs = new long[sampleSize];
+		int count = 0;
+		while(count < sampleSize){
+			int i = random.nextInt(components.length);
+			int j = random.nextInt(components.length);
+			if(i == j){
+				continue;
+			}
+			long key = KnowledgeRegistry.pairKey(components[Math.min(i, j)], components[Math.max(i, j)]);
+			if(sampled.put(key, Boolean.TRUE) == null){
+				componentPairs[count++] = key;
+			}
+		}
+		return componentPairs;
+	}
+
+	/** Returns a matrix of distances and distance classes for given knowledge fields among all the components.
+	 * Package-private only so that the benchmarks can measure this stage of the planning.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param labels The pair knowledge fields the values will be extracted from.
+	 * @return The matrix of distances and distance classes for given knowledge fields among all the components.
+	 */
+	List<DistancePair> computeDistances(
+			KnowledgeHistoryStore history,
+			long labels){
+
+		long[] componentPairs = getComponentPairs(history.getComponents(labels));
+		long[] afterSlots = new long[componentPairs.length];
+		Arrays.fill(afterSlots, Long.MIN_VALUE);
+		List<List<DistancePair>> newDistances = new ArrayList<>(
+				Collections.nCopies(componentPairs.length, (List<DistancePair>) null));
+		collectDistances(history, componentPairs, labels, afterSlots, newDistances);
+
+		List<DistancePair> distancePairs = new ArrayList<>();
+		for(List<DistancePair> distances : newDistances){
+			distancePairs.addAll(distances);
+		}
+
+		if (dumpValues) {
+			StringBuilder b = new StringBuilder();
+			b.append("Computed distances\n");
+			fillDistances(distancePairs, b);
+			System.out.println(b.toString());
+		}
+
+		return distancePairs;
+	}
+
+	/** Folds the newly observed time slots into the distances kept for the given knowledge fields.
+	 * The distances computed from values that are no longer in the history are dropped,
+	 * as well as the distances of the component pairs that no longer hold both the fields.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param labels The pair knowledge fields the values will be extracted from.
+	 * @return The distances kept for the given knowledge fields among all the components.
+	 */
+	private LabelPairDistances updateDistances(
+			KnowledgeHistoryStore history,
+			long labels){
+
+		LabelPairDistances state = labelPairDistances.get(labels);
+
+		long[] componentPairs = getComponentPairs(history.getComponents(labels));
+		state.retain(componentPairs);
+		long[] afterSlots = new long[componentPairs.length];
+		for(int i = 0; i < componentPairs.length; i++){
+			afterSlots[i] = state.getLastSlot(componentPairs[i]);
+		}
+		List<List<DistancePair>> newDistances = new ArrayList<>(
+				Collections.nCopies(componentPairs.length, (List<DistancePair>) null));
+		long[] lastSlots = collectDistances(history, componentPairs, labels, afterSlots, newDistances);
+
+		for(int i = 0; i < componentPairs.length; i++){
+			long componentPair = componentPairs[i];
+			state.add(componentPair, newDistances.get(i), lastSlots[i]);
+			state.prune(componentPair, getOldestCommonSlot(history, componentPair, labels),
+					history.getTimeSlotDuration());
+		}
+
+		if (dumpValues) {
+			StringBuilder b = new StringBuilder();
+			b.append("Updated distances\n");
+			fillDistances(state.getDistances(), b);
+			System.out.println(b.toString());
+		}
+
+		return state;
+	}
+
+	/** Adds the newly observed time slots to the online estimator of the given knowledge fields.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param labels The pair knowledge fields the values will be extracted from.
+	 * @return The online estimator of the correlation of the given knowledge fields.
+	 */
+	private DecayedCorrelationLevel updateOnlineLevel(
+			KnowledgeHistoryStore history,
+			long labels){
+
+		DecayedCorrelationLevel level = onlineLevels.get(labels);
+
+		long[] componentPairs = getComponentPairs(history.getComponents(labels));
+		level.retain(componentPairs);
+		long[] afterSlots = new long[componentPairs.length];
+		for(int i = 0; i < componentPairs.length; i++){
+			afterSlots[i] = level.getLastSlot(componentPairs[i]);
+		}
+		List<List<DistancePair>> newDistances = new ArrayList<>(
+				Collections.nCopies(componentPairs.length, (List<DistancePair>) null));
+		long[] lastSlots = collectDistances(history, componentPairs, labels, afterSlots, newDistances);
+
+		for(int i = 0; i < componentPairs.length; i++){
+			for(DistancePair distance : newDistances.get(i)){
+				level.addDistance(distance.distance, distance.distanceClass,
+						distance.timestamp / history.getTimeSlotDuration());
+			}
+			level.setLastSlot(componentPairs[i], lastSlots[i]);
+		}
+
+		return level;
+	}
+
+	/** Computes the distances and distance classes for given knowledge fields between each of
+	 * the given component pairs for the time slots following the respective given time slot.
+	 * The component pairs are processed in parallel when called from within the {@link #planningPool}.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param componentPairs The pairs of components containing the given pair of knowledge fields.
+	 * @param labels The pair knowledge fields the values will be extracted from.
+	 * @param afterSlots For each component pair only the time slots following this one are considered.
+	 * @param distancePairs The list the computed distances are stored to, at the position of
+	 * the respective component pair.
+	 * @return The last time slots processed for the respective component pairs.
+	 */
+	private long[] collectDistances(
+			final KnowledgeHistoryStore history,
+			final long[] componentPairs,
+			final long labels,
+			final long[] afterSlots,
+			final List<List<DistancePair>> distancePairs){
+
+		final long[] lastSlots = new long[componentPairs.length];
+
+		class ComponentPairsAction extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+
+			private final int from;
+			private final int to;
+
+			ComponentPairsAction(int from, int to){
+				this.from = from;
+				this.to = to;
+			}
+
+			@Override
+			protected void compute() {
+				if(to - from <= PARALLEL_COMPONENT_PAIRS_THRESHOLD || !inForkJoinPool()){
+					for(int i = from; i < to; i++){
+						List<DistancePair> distances = new ArrayList<>();
+						lastSlots[i] = collectDistances(history, componentPairs[i], labels,
+								afterSlots[i], distances);
+						distancePairs.set(i, distances);
+					}
+				} else {
+					int middle = (from + to) >>> 1;
+					invokeAll(new ComponentPairsAction(from, middle), new ComponentPairsAction(middle, to));
+				}
+			}
+		}
+
+		ComponentPairsAction action = new ComponentPairsAction(0, componentPairs.length);
+		if(ForkJoinTask.inForkJoinPool()){
+			action.invoke();
+		} else {
+			action.compute();
+		}
+
+		return lastSlots;
+	}
+
+	/** Computes the distances and distance classes for given knowledge fields between the given
+	 * components for the time slots following the given one.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param componentPair The pair of components containing the given pair of knowledge fields.
+	 * @param labels The pair knowledge fields the values will be extracted from.
+	 * @param afterSlot Only the time slots following this one are considered.
+	 * @param distancePairs The list the computed distances are appended to.
+	 * @return The last time slot processed. The given afterSlot if no time slot was processed.
+	 */
+	private long collectDistances(
+			KnowledgeHistoryStore history,
+			long componentPair,
+			long labels,
+			long afterSlot,
+			List<DistancePair> distancePairs){
+
+		int component1 = KnowledgeRegistry.firstId(componentPair);
+		int component2 = KnowledgeRegistry.secondId(componentPair);
+		int label1 = KnowledgeRegistry.firstId(labels);
+		int label2 = KnowledgeRegistry.secondId(labels);
+		KnowledgeHistory c1Values1 = history.getHistory(component1, label1);
+		KnowledgeHistory c1Values2 = history.getHistory(component1, label2);
+		KnowledgeHistory c2Values1 = history.getHistory(component2, label1);
+		KnowledgeHistory c2Values2 = history.getHistory(component2, label2);
+		KnowledgeMetadata metadata1 = metadata.getMetadata(getFirstLabel(labels));
+		KnowledgeMetadata metadata2 = metadata.getMetadata(getSecondLabel(labels));
+
+		List<KnowledgeQuadruple> knowledge = extractKnowledgeHistory(history, componentPair, labels, afterSlot);
+		if(knowledge.isEmpty()){
+			return afterSlot;
+		}
+		long lastSlot = knowledge.get(knowledge.size() - 1).timeSlot;
+		if(metadata1 == null || metadata2 == null){
+			// The distances can't be measured without the metadata
+			return lastSlot;
+		}
+
+		// Gather the positions of the operational fields to measure them in a batch
+		int[] c1Positions1 = new int[knowledge.size()];
+		int[] c1Positions2 = new int[knowledge.size()];
+		int[] c2Positions1 = new int[knowledge.size()];
+		int[] c2Positions2 = new int[knowledge.size()];
+		int count = 0;
+		for(KnowledgeQuadruple values : knowledge){
+			// Consider only operational fields
+			if(c1Values1.isOperational(values.c1Value1) && c2Values1.isOperational(values.c2Value1)
+					&& c1Values2.isOperational(values.c1Value2) && c2Values2.isOperational(values.c2Value2)){
+				c1Positions1[count] = values.c1Value1;
+				c1Positions2[count] = values.c1Value2;
+				c2Positions1[count] = values.c2Value1;
+				c2Positions2[count] = values.c2Value2;
+				count++;
+			}
+		}
+
+		double[] distances1 = new double[count];
+		double[] distances2 = new double[count];
+		metadata1.distance(c1Values1, c1Positions1, c2Values1, c2Positions1, count, distances1);
+		metadata2.distance(c1Values2, c1Positions2, c2Values2, c2Positions2, count, distances2);
+		for(int i = 0; i < count; i++){
+			DistanceClass distanceClass = metadata2.classify(distances2[i]);
+			if(!Double.isNaN(distances1[i]) && distanceClass != DistanceClass.Undefined) {
+				distancePairs.add(new DistancePair(distances1[i], distanceClass,
+						c1Values1.getTimestamp(c1Positions1[i])));
+			}
+		}
+
+		return lastSlot;
+	}
+
+	/**
+	 * Returns the earliest time slot for which all the values identified by the given labels
+	 * of the given components can still be in the history.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param componentPair The pair of components containing the given pair of knowledge fields.
+	 * @param labels The pair knowledge fields.
+	 * @return The earliest time slot for which all the values can still be in the history.
+	 */
+	private long getOldestCommonSlot(
+			KnowledgeHistoryStore history,
+			long componentPair,
+			long labels){
+		long oldestSlot = Long.MIN_VALUE;
+		for(int component : new int[]{KnowledgeRegistry.firstId(componentPair), KnowledgeRegistry.secondId(componentPair)}){
+			for(int label : new int[]{KnowledgeRegistry.firstId(labels), KnowledgeRegistry.secondId(labels)}){
+				TimeSlotIndex index = history.getHistory(component, label).getTimeSlotIndex(history.getTimeSlotDuration());
+				if(index.size() > 0){
+					oldestSlot = Math.max(oldestSlot, index.getSlot(0));
+				}
+			}
+		}
+		return oldestSlot;
+	}
+
+	/**
+	 * Returns the distance boundary of the knowledge identified by the first label in the given labels,
+	 * that ensures the satisfaction of confidence level by the correlation of the knowledge identified by the labels.
+	 * Double.NaN if returned if the confidence level can't be satisfied.
+	 * Package-private only so that the benchmarks can measure this stage of the planning.
+	 * @param distancePairs A list of distances of the knowledge labeled by the first label and distance
+	 * classes of the knowledge labeled by the second label.
+	 * @param labels The labels identifying the knowledge.
+	 * @return The distance boundary of the knowledge identified by the first label in the given labels,
+	 * that ensures the satisfaction of confidence level by the correlation of the knowledge identified by the labels.
+	 * Double.NaN if returned if the confidence level can't be satisfied.
+	 */
+	double getDistanceBoundary(List<DistancePair> distancePairs, long labels){
+		// Sort the data by the distance of first knowledge field
+		Collections.sort(distancePairs);
+		if(dumpValues) {
+			StringBuilder b = new StringBuilder();
+			b.append("Sorted distances\n");
+			fillDistances(distancePairs, b);
+			System.out.println(b.toString());
+		}
+		int index = getDistanceBoundaryIndex(distancePairs, labels);
+		return index < 0 ? Double.NaN : distancePairs.get(index).distance;
+	}
+
+	/**
+	 * Returns the position of the distance boundary in the given sorted list of distances.
+	 * @param distancePairs A list of distances sorted by the distance of the knowledge labeled
+	 * by the first label.
+	 * @param labels The labels identifying the knowledge.
+	 * @return The position of the distance boundary in the given list. -1 if the confidence
+	 * level can't be satisfied.
+	 */
+	private int getDistanceBoundaryIndex(List<DistancePair> distancePairs, long labels){
+		// Count the correlation for all the distances based on all smaller distances than the computed one
+		// and find the greatest distance that satisfies the correlation level
+		double confidenceLevel = metadata.getConfidenceLevel(getSecondLabel(labels));
+		int boundaryIndex = -1;
+		int closeCnt = 0;
+		for(int i = 0; i < distancePairs.size(); i++){
+			if(distancePairs.get(i).distanceClass == DistanceClass.Close){
+				closeCnt++;
+			}
+			double corr = ((double) closeCnt) / ((double) i);
+			if(corr >= confidenceLevel){
+				boundaryIndex = i;
+			}
+		}
+
+		return boundaryIndex;
+	}
+
+	/**
+	 * A distance boundary together with the bound on the error of the correlation
+	 * level it achieves.
+	 */
+	private static class BoundaryEstimate {
+		/**
+		 * The distance boundary.
+		 */
+		final double boundary;
+		/**
+		 * The bound on the error of the correlation level achieved by the boundary.
+		 */
+		final double errorBound;
+		/**
+		 * The probability with which the error stays within the bound.
+		 */
+		final double errorConfidence;
+
+		BoundaryEstimate(double boundary, double errorBound, double errorConfidence){
+			this.boundary = boundary;
+			this.errorBound = errorBound;
+			this.errorConfidence = errorConfidence;
+		}
+	}
+
+	/**
+	 * Fill the given StringBuilder with the given values.
+	 * For debug print purposes.
+	 * @param distancePairs The values to be filled into the builder.
+	 * @param builder The StringBuilder to be filled.
+	 */
+	private void fillDistances(List<DistancePair> distancePairs, StringBuilder builder){
+		builder.append("time: ");
+		for(DistancePair dp : distancePairs)
+		{
+			builder.append(dp.timestamp + ", ");
+		}
+		builder.delete(builder.length()-2, builder.length());
+		builder.append("\n");
+		builder.append("distance: ");
+		for(DistancePair dp : distancePairs)
+		{
+			builder.append(String.format(Locale.ENGLISH, "%.1f, ", dp.distance));
+		}
+		builder.delete(builder.length()-2, builder.length());
+		builder.append("\n");
+		builder.append("class: ");
+		for(DistancePair dp : distancePairs)
+		{
+			builder.append(dp.distanceClass + ", ");
+		}
+		builder.delete(builder.length()-2, builder.length());
+		builder.append("\n");
+	}
+
+	/**
+	 * A knowledge sample published by the {@link CorrelationManager#publish(Component, String, Object, long, boolean)}.
+	 */
+	private static final class PublishedSample {
+		/**
+		 * The component whose knowledge was sampled.
+		 */
+		final Component component;
+		/**
+		 * The sampled knowledge field.
+		 */
+		final CorrelationMetadataWrapper<?> field;
+
+		PublishedSample(Component component, CorrelationMetadataWrapper<?> field){
+			this.component = component;
+			this.field = field;
+		}
+	}
+}
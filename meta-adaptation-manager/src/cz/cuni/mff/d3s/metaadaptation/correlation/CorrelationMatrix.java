@@ -0,0 +1,295 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import cz.cuni.mff.d3s.metaadaptation.correlation.CorrelationLevel.DistanceClass;
+
+/**
+ * Computes the distances and distance classes of many label pairs at once. Instead of aligning
+ * the histories of each component pair separately for every label pair, the histories of each
+ * label are aligned once per component pair and the distances of the label are measured once
+ * for all its common time slots. The distance pairs of every label pair are then obtained
+ * by joining the time slots of the two labels.
+ * <p>
+ * The result is the same as if the four histories of each label pair and component pair were
+ * aligned by the {@link KnowledgeAligner}: the earliest values of the time slots common to all
+ * the four histories are used, only the operational values are considered and the distance
+ * pairs are ordered by the component pairs and time slots.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class CorrelationMatrix {
+
+	/**
+	 * The count of the component pairs below which the pairs are not split
+	 * among the parallel tasks.
+	 */
+	private static final int PARALLEL_COMPONENT_PAIRS_THRESHOLD = 16;
+
+	/**
+	 * The history of knowledge of all the components in the system.
+	 */
+	private final KnowledgeHistoryStore history;
+	/**
+	 * The keys of the label pairs to compute the distances for.
+	 */
+	private final long[] labelPairs;
+	/**
+	 * The metadata of the labels indexed by the label IDs. Null for the labels without metadata.
+	 */
+	private final KnowledgeMetadata[] metadata;
+	/**
+	 * The IDs of the labels that occur in the label pairs.
+	 */
+	private final int[] labels;
+
+	/**
+	 * Create a new instance of {@link CorrelationMatrix}.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param metadata The metadata of the knowledge fields.
+	 * @param labelPairs The keys of the label pairs to compute the distances for.
+	 */
+	public CorrelationMatrix(KnowledgeHistoryStore history, KnowledgeMetadataRegistry metadata,
+			long[] labelPairs){
+		if(history == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "history"));
+		}
+		if(metadata == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "metadata"));
+		}
+		if(labelPairs == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "labelPairs"));
+		}
+
+		this.history = history;
+		this.labelPairs = labelPairs.clone();
+
+		KnowledgeRegistry registry = history.getRegistry();
+		this.metadata = new KnowledgeMetadata[registry.getLabelCount()];
+		boolean[] used = new boolean[registry.getLabelCount()];
+		int labelCnt = 0;
+		for(long labelPair : labelPairs){
+			for(int label : new int[]{KnowledgeRegistry.firstId(labelPair), KnowledgeRegistry.secondId(labelPair)}){
+				if(!used[label]){
+					used[label] = true;
+					this.metadata[label] = metadata.getMetadata(registry.getLabel(label));
+					labelCnt++;
+				}
+			}
+		}
+		labels = new int[labelCnt];
+		labelCnt = 0;
+		for(int label = 0; label < used.length; label++){
+			if(used[label]){
+				labels[labelCnt++] = label;
+			}
+		}
+	}
+
+	/**
+	 * Computes the distances and distance classes of all the label pairs among all the components.
+	 * The component pairs are processed in parallel when called from within a fork join pool.
+	 * @return The lists of distances of the knowledge labeled by the first label and distance
+	 * classes of the knowledge labeled by the second label, at the positions of the respective
+	 * label pairs.
+	 */
+	public List<List<DistancePair>> compute(){
+		int[] components = history.getComponents();
+		final long[] componentPairs = new long[components.length * (components.length - 1) / 2];
+		int count = 0;
+		for(int i = 0; i < components.length; i++){
+			for(int j = i + 1; j < components.length; j++){
+				componentPairs[count++] = KnowledgeRegistry.pairKey(components[i], components[j]);
+			}
+		}
+
+		// The distance pairs of each component pair (row) for each label pair (column)
+		final List<List<List<DistancePair>>> rows = new ArrayList<>(componentPairs.length);
+		for(int i = 0; i < componentPairs.length; i++){
+			rows.add(null);
+		}
+
+		class ComponentPairsAction extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+
+			private final int from;
+			private final int to;
+
+			ComponentPairsAction(int from, int to){
+				this.from = from;
+				this.to = to;
+			}
+
+			@Override
+			protected void compute() {
+				if(to - from <= PARALLEL_COMPONENT_PAIRS_THRESHOLD || !inForkJoinPool()){
+					for(int i = from; i < to; i++){
+						rows.set(i, computeRow(componentPairs[i]));
+					}
+				} else {
+					int middle = (from + to) >>> 1;
+					invokeAll(new ComponentPairsAction(from, middle), new ComponentPairsAction(middle, to));
+				}
+			}
+		}
+
+		ComponentPairsAction action = new ComponentPairsAction(0, componentPairs.length);
+		if(ForkJoinTask.inForkJoinPool()){
+			action.invoke();
+		} else {
+			action.compute();
+		}
+
+		List<List<DistancePair>> distancePairs = new ArrayList<>(labelPairs.length);
+		for(int k = 0; k < labelPairs.length; k++){
+			List<DistancePair> distances = new ArrayList<>();
+			for(List<List<DistancePair>> row : rows){
+				if(row.get(k) != null){
+					distances.addAll(row.get(k));
+				}
+			}
+			distancePairs.add(distances);
+		}
+		return distancePairs;
+	}
+
+	/**
+	 * Computes the distances and distance classes of all the label pairs between the given components.
+	 * @param componentPair The key of the component pair.
+	 * @return The distance pairs at the positions of the respective label pairs. Null for
+	 * the label pairs not held by both the components.
+	 */
+	private List<List<DistancePair>> computeRow(long componentPair){
+		int component1 = KnowledgeRegistry.firstId(componentPair);
+		int component2 = KnowledgeRegistry.secondId(componentPair);
+
+		// Align the histories of each label once
+		LabelSeries[] series = new LabelSeries[metadata.length];
+		for(int label : labels){
+			KnowledgeHistory values1 = history.getHistory(component1, label);
+			KnowledgeHistory values2 = history.getHistory(component2, label);
+			if(values1 != null && values2 != null){
+				series[label] = new LabelSeries(values1, values2, metadata[label],
+						history.getTimeSlotDuration());
+			}
+		}
+
+		List<List<DistancePair>> row = new ArrayList<>(labelPairs.length);
+		for(long labelPair : labelPairs){
+			LabelSeries series1 = series[KnowledgeRegistry.firstId(labelPair)];
+			LabelSeries series2 = series[KnowledgeRegistry.secondId(labelPair)];
+			if(series1 == null || series2 == null){
+				row.add(null);
+				continue;
+			}
+
+			List<DistancePair> distances = new ArrayList<>();
+			KnowledgeMetadata metadata2 = metadata[KnowledgeRegistry.secondId(labelPair)];
+			if(metadata[KnowledgeRegistry.firstId(labelPair)] != null && metadata2 != null){
+				int i = 0;
+				int j = 0;
+				while(i < series1.size && j < series2.size){
+					if(series1.slots[i] < series2.slots[j]){
+						i++;
+					} else if(series1.slots[i] > series2.slots[j]){
+						j++;
+					} else {
+						DistanceClass distanceClass = metadata2.classify(series2.distances[j]);
+						if(!Double.isNaN(series1.distances[i]) && distanceClass != DistanceClass.Undefined){
+							distances.add(new DistancePair(series1.distances[i], distanceClass,
+									series1.values1.getTimestamp(series1.positions1[i])));
+						}
+						i++;
+						j++;
+					}
+				}
+			}
+			row.add(distances);
+		}
+		return row;
+	}
+
+	/**
+	 * The distances of the values of a single label of two components in theirs common time slots.
+	 */
+	private static final class LabelSeries {
+		/**
+		 * The history of the label of the first component.
+		 */
+		final KnowledgeHistory values1;
+		/**
+		 * The common time slots in ascending order.
+		 */
+		final long[] slots;
+		/**
+		 * The positions of the earliest values of the first component in the common time slots.
+		 */
+		final int[] positions1;
+		/**
+		 * The distances of the earliest values in the common time slots.
+		 * NaN if any of the values is not operational or the label has no metadata.
+		 */
+		final double[] distances;
+		/**
+		 * The count of the common time slots.
+		 */
+		final int size;
+
+		LabelSeries(KnowledgeHistory values1, KnowledgeHistory values2, KnowledgeMetadata metadata,
+				long timeSlotDuration){
+			this.values1 = values1;
+			TimeSlotIndex index1 = values1.getTimeSlotIndex(timeSlotDuration);
+			TimeSlotIndex index2 = values2.getTimeSlotIndex(timeSlotDuration);
+			int capacity = Math.min(index1.size(), index2.size());
+			slots = new long[capacity];
+			positions1 = new int[capacity];
+			int[] positions2 = new int[capacity];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while(i < index1.size() && j < index2.size()){
+				if(index1.getSlot(i) < index2.getSlot(j)){
+					i++;
+				} else if(index1.getSlot(i) > index2.getSlot(j)){
+					j++;
+				} else {
+					slots[count] = index1.getSlot(i);
+					positions1[count] = index1.getPosition(i);
+					positions2[count] = index2.getPosition(j);
+					count++;
+					i++;
+					j++;
+				}
+			}
+			size = count;
+
+			// Measure the operational values in a batch
+			distances = new double[count];
+			Arrays.fill(distances, Double.NaN);
+			if(metadata != null){
+				int[] operational = new int[count];
+				int[] operational1 = new int[count];
+				int[] operational2 = new int[count];
+				int operationalCnt = 0;
+				for(int k = 0; k < count; k++){
+					if(values1.isOperational(positions1[k]) && values2.isOperational(positions2[k])){
+						operational[operationalCnt] = k;
+						operational1[operationalCnt] = positions1[k];
+						operational2[operationalCnt] = positions2[k];
+						operationalCnt++;
+					}
+				}
+				double[] measured = new double[operationalCnt];
+				metadata.distance(values1, operational1, values2, operational2, operationalCnt, measured);
+				for(int k = 0; k < operationalCnt; k++){
+					distances[operational[k]] = measured[k];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,358 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A binary snapshot of the state of the {@link CorrelationManager} stored in a memory-mapped file.
+ * The snapshot holds the numeric knowledge histories, the labels of the knowledge fields and
+ * the distance boundaries, so that the correlation manager doesn't have to learn from nothing
+ * after a restart. The histories that are not numeric are not stored.
+ * <p>
+ * The components are identified by string keys that have to be stable across the restarts.
+ * When the snapshot is read only the labels and the boundaries are decoded. The histories of
+ * a component are decoded from the mapped file when the component is looked up.
+ * </p>
+ * <p>
+ * The file starts with a header (magic number, version), followed by the labels, the boundaries
+ * (IDs of the labels, boundary, error bound, error confidence) and the directory of the components
+ * (key, offset and length of the histories). The histories of each component consist of the
+ * label ID, count of values, timestamps, values and the operational flags packed in bits.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class CorrelationSnapshot {
+
+	/**
+	 * Identifies the snapshot files.
+	 */
+	private static final int MAGIC = 0x4D414D53;
+	/**
+	 * The version of the snapshot format.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * The mapped snapshot file.
+	 */
+	private final MappedByteBuffer buffer;
+	/**
+	 * The labels of the knowledge fields indexed by theirs IDs within the snapshot.
+	 */
+	private final List<String> labels;
+	/**
+	 * The stored distance boundaries.
+	 */
+	private final Map<LabelPair, BoundaryValueHolder> bounds;
+	/**
+	 * The offsets of the histories of the individual components in the file.
+	 */
+	private final Map<String, Integer> componentOffsets;
+
+	/**
+	 * Decode the header, the labels, the boundaries and the directory of the components
+	 * from the given mapped file.
+	 * @param buffer The mapped snapshot file.
+	 * @throws IOException If the file is not a valid snapshot.
+	 */
+	private CorrelationSnapshot(MappedByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		try {
+			if(buffer.getInt() != MAGIC){
+				throw new IOException("The file is not a correlation snapshot.");
+			}
+			int version = buffer.getInt();
+			if(version != VERSION){
+				throw new IOException(String.format("Unsupported snapshot version %d.", version));
+			}
+
+			int labelCnt = getCount(buffer, 4);
+			labels = new ArrayList<>(labelCnt);
+			for(int i = 0; i < labelCnt; i++){
+				labels.add(getString(buffer));
+			}
+
+			int boundCnt = getCount(buffer, 4 + 4 + 3 * 8);
+			bounds = new LinkedHashMap<>();
+			for(int i = 0; i < boundCnt; i++){
+				LabelPair pair = new LabelPair(labels.get(buffer.getInt()), labels.get(buffer.getInt()));
+				BoundaryValueHolder bound = new BoundaryValueHolder(buffer.getDouble());
+				bound.setError(buffer.getDouble(), buffer.getDouble());
+				bounds.put(pair, bound);
+			}
+
+			int componentCnt = getCount(buffer, 4 + 4);
+			componentOffsets = new HashMap<>();
+			for(int i = 0; i < componentCnt; i++){
+				componentOffsets.put(getString(buffer), buffer.getInt());
+			}
+		} catch(BufferUnderflowException | IndexOutOfBoundsException e){
+			throw new IOException("The correlation snapshot is corrupted.", e);
+		}
+	}
+
+	/**
+	 * Map the given snapshot file.
+	 * @param file The snapshot file.
+	 * @return The snapshot stored in the given file.
+	 * @throws IOException If the file can't be read or is not a valid snapshot.
+	 */
+	public static CorrelationSnapshot read(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			return new CorrelationSnapshot(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Returns the distance boundaries stored in the snapshot.
+	 * @return The distance boundaries stored in the snapshot.
+	 */
+	public Map<LabelPair, BoundaryValueHolder> getBounds(){
+		return bounds;
+	}
+
+	/**
+	 * Returns the keys of the components whose histories are stored in the snapshot.
+	 * @return The keys of the components whose histories are stored in the snapshot.
+	 */
+	public Set<String> getComponentKeys(){
+		return componentOffsets.keySet();
+	}
+
+	/**
+	 * Decode the histories of the component identified by the given key.
+	 * @param componentKey The key of the component.
+	 * @param historyFactory Creates the empty histories the stored values are added to.
+	 * @return The histories of the knowledge fields of the component. Null if the snapshot
+	 * doesn't contain the component.
+	 * @throws IOException If the snapshot is corrupted.
+	 */
+	public Map<String, KnowledgeHistory> getHistories(String componentKey,
+			Supplier<? extends KnowledgeHistory> historyFactory) throws IOException {
+		Integer offset = componentOffsets.get(componentKey);
+		if(offset == null){
+			return null;
+		}
+
+		try {
+			// The positioning goes through the Buffer so that the calls link on Java 8
+			ByteBuffer section = ((ByteBuffer) buffer).duplicate();
+			((Buffer) section).position(offset);
+			int fieldCnt = getCount(section, 4 + 4 + 4);
+			Map<String, KnowledgeHistory> histories = new HashMap<>();
+			for(int f = 0; f < fieldCnt; f++){
+				String label = labels.get(section.getInt());
+				int size = getCount(section, 8 + 8);
+				long[] timestamps = new long[size];
+				double[] values = new double[size];
+				section.asLongBuffer().get(timestamps);
+				((Buffer) section).position(section.position() + 8 * size);
+				section.asDoubleBuffer().get(values);
+				((Buffer) section).position(section.position() + 8 * size);
+				long[] words = new long[getCount(section, 8)];
+				section.asLongBuffer().get(words);
+				((Buffer) section).position(section.position() + 8 * words.length);
+				BitSet operational = BitSet.valueOf(words);
+
+				KnowledgeHistory history = historyFactory.get();
+				for(int i = 0; i < size; i++){
+					history.add(values[i], timestamps[i], operational.get(i));
+				}
+				histories.put(label, history);
+			}
+			return histories;
+		} catch(BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e){
+			throw new IOException("The correlation snapshot is corrupted.", e);
+		}
+	}
+
+	/**
+	 * Write the snapshot of the given state into the given file. The snapshot is written
+	 * into a temporary file first and then moved to the given file.
+	 * @param file The snapshot file.
+	 * @param histories The history of knowledge of all the components in the system.
+	 * Only the numeric histories are stored.
+	 * @param bounds The distance boundaries.
+	 * @param componentKey Provides the keys identifying the components across the restarts.
+	 * @throws IOException If the file can't be written.
+	 */
+	public static void write(Path file, Map<Component, Map<String, KnowledgeHistory>> histories,
+			Map<LabelPair, BoundaryValueHolder> bounds, Function<Component, String> componentKey)
+					throws IOException {
+		if(file == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "file"));
+		}
+		if(histories == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "histories"));
+		}
+		if(bounds == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "bounds"));
+		}
+		if(componentKey == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "componentKey"));
+		}
+
+		// Intern the labels and encode the strings
+		Map<String, Integer> labelIds = new LinkedHashMap<>();
+		for(LabelPair pair : bounds.keySet()){
+			internLabel(labelIds, pair.getFirstLabel());
+			internLabel(labelIds, pair.getSecondLabel());
+		}
+		List<byte[]> keys = new ArrayList<>();
+		List<Map<String, KnowledgeHistory>> numericHistories = new ArrayList<>();
+		for(Component component : histories.keySet()){
+			Map<String, KnowledgeHistory> numeric = new LinkedHashMap<>();
+			for(Map.Entry<String, KnowledgeHistory> field : histories.get(component).entrySet()){
+				if(field.getValue().isNumeric()){
+					internLabel(labelIds, field.getKey());
+					numeric.put(field.getKey(), field.getValue());
+				}
+			}
+			keys.add(componentKey.apply(component).getBytes(StandardCharsets.UTF_8));
+			numericHistories.add(numeric);
+		}
+		List<byte[]> labelBytes = new ArrayList<>();
+		for(String label : labelIds.keySet()){
+			labelBytes.add(label.getBytes(StandardCharsets.UTF_8));
+		}
+
+		// Compute the layout
+		long size = 4 + 4 + 4;
+		for(byte[] label : labelBytes){
+			size += 4 + label.length;
+		}
+		size += 4 + bounds.size() * (4 + 4 + 8 + 8 + 8);
+		size += 4;
+		for(byte[] key : keys){
+			size += 4 + key.length + 4;
+		}
+		int[] offsets = new int[keys.size()];
+		for(int c = 0; c < keys.size(); c++){
+			offsets[c] = (int) size;
+			size += 4;
+			for(KnowledgeHistory history : numericHistories.get(c).values()){
+				size += 4 + 4 + 16L * history.size() + 4 + 8L * ((history.size() + 63) / 64);
+			}
+			if(size > Integer.MAX_VALUE){
+				throw new IOException("The correlation snapshot is too large.");
+			}
+		}
+
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+			MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, size);
+
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(labelBytes.size());
+			for(byte[] label : labelBytes){
+				buffer.putInt(label.length);
+				buffer.put(label);
+			}
+
+			buffer.putInt(bounds.size());
+			for(Map.Entry<LabelPair, BoundaryValueHolder> bound : bounds.entrySet()){
+				buffer.putInt(labelIds.get(bound.getKey().getFirstLabel()));
+				buffer.putInt(labelIds.get(bound.getKey().getSecondLabel()));
+				buffer.putDouble(bound.getValue().getBoundary());
+				buffer.putDouble(bound.getValue().getErrorBound());
+				buffer.putDouble(bound.getValue().getErrorConfidence());
+			}
+
+			buffer.putInt(keys.size());
+			for(int c = 0; c < keys.size(); c++){
+				buffer.putInt(keys.get(c).length);
+				buffer.put(keys.get(c));
+				buffer.putInt(offsets[c]);
+			}
+
+			for(Map<String, KnowledgeHistory> component : numericHistories){
+				buffer.putInt(component.size());
+				for(Map.Entry<String, KnowledgeHistory> field : component.entrySet()){
+					KnowledgeHistory history = field.getValue();
+					buffer.putInt(labelIds.get(field.getKey()));
+					buffer.putInt(history.size());
+					for(int i = 0; i < history.size(); i++){
+						buffer.putLong(history.getTimestamp(i));
+					}
+					for(int i = 0; i < history.size(); i++){
+						buffer.putDouble(history.getDoubleValue(i));
+					}
+					long[] words = new long[(history.size() + 63) / 64];
+					for(int i = 0; i < history.size(); i++){
+						if(history.isOperational(i)){
+							words[i / 64] |= 1L << (i % 64);
+						}
+					}
+					buffer.putInt(words.length);
+					for(long word : words){
+						buffer.putLong(word);
+					}
+				}
+			}
+
+			buffer.force();
+		}
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Assign an ID to the given label if it doesn't have one yet.
+	 * @param labelIds The IDs of the labels.
+	 * @param label The label.
+	 */
+	private static void internLabel(Map<String, Integer> labelIds, String label){
+		if(!labelIds.containsKey(label)){
+			labelIds.put(label, labelIds.size());
+		}
+	}
+
+	/**
+	 * Decode a string stored as its length followed by its UTF-8 bytes.
+	 * @param buffer The buffer to read from.
+	 * @return The decoded string.
+	 * @throws IOException If the length of the string is not valid.
+	 */
+	private static String getString(ByteBuffer buffer) throws IOException {
+		byte[] bytes = new byte[getCount(buffer, 1)];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Read the count of the elements that follow in the given buffer. The count is checked
+	 * against the remaining bytes before anything is allocated for the elements.
+	 * @param buffer The buffer to read from.
+	 * @param elementSize The least size of a single element in bytes.
+	 * @return The count of the elements.
+	 * @throws IOException If the count is negative or the elements can't fit the buffer.
+	 */
+	private static int getCount(ByteBuffer buffer, int elementSize) throws IOException {
+		int count = buffer.getInt();
+		if(count < 0 || (long) count * elementSize > buffer.remaining()){
+			throw new IOException("The correlation snapshot is corrupted.");
+		}
+		return count;
+	}
+}
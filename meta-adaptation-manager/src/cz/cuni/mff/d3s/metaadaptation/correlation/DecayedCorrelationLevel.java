@@ -0,0 +1,286 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+/**
+ * The correlation of knowledge identified by two labels estimated online from a stream
+ * of aligned time slots. Instead of keeping the distances, the estimator keeps the weights
+ * of close and all the distances of the second label per bucket of the distances of the
+ * first label. The weight of a time slot decays exponentially with its age, so the statistics
+ * follow the recent behaviour of the sensors and the stale regimes age out.
+ * <p>
+ * Each time slot is added in constant time and the distance boundary is read off
+ * the buckets without scanning any history. The boundary is the upper edge of the last
+ * non-empty bucket below which the weighted ratio of close distances satisfies the confidence
+ * level of the second label. The distances beyond the last bucket are counted into it.
+ * </p>
+ * <p>
+ * The weights are kept relative to a reference time slot, which is moved forward
+ * once the weights of new time slots grow too large, so no decay is applied
+ * to all the buckets on each update.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class DecayedCorrelationLevel extends CorrelationLevel {
+
+	/**
+	 * Generated serial version UID.
+	 */
+	private static final long serialVersionUID = -3921766431069516087L;
+
+	/**
+	 * The exponent of the weight at which the weights are rescaled to the latest time slot.
+	 */
+	private static final double RESCALE_EXPONENT = 64;
+
+	/**
+	 * The width of the buckets of the distances of the first label.
+	 */
+	private final double bucketWidth;
+	/**
+	 * The half-life of the weight of a time slot in time slots.
+	 */
+	private final double halfLife;
+	/**
+	 * The weights of the close distances of the second label per bucket.
+	 */
+	private final double[] closeWeights;
+	/**
+	 * The weights of all the distances of the second label per bucket.
+	 */
+	private final double[] totalWeights;
+	/**
+	 * The weight of the time slots in which the values of the first label are close.
+	 */
+	private double data1CloseWeight;
+	/**
+	 * The weight of the time slots in which the values of both the labels are close.
+	 */
+	private double data2CloseWeight;
+	/**
+	 * The time slot of the weight 1. {@link Long#MIN_VALUE} if no time slot was added yet.
+	 */
+	private long referenceSlot;
+	/**
+	 * The last time slots added for the individual component pairs, each held in
+	 * a single-element array so that it is updated in place. Serialized by
+	 * the {@link #writeObject(ObjectOutputStream)}.
+	 */
+	private transient LongObjectMap<long[]> lastSlots;
+
+	/**
+	 * Create new instance of DecayedCorrelationLevel for given pair of labels.
+	 * @param labels the pair of label for which the correlation will be held.
+	 * @param metadata The metadata of the knowledge fields. The {@link KnowledgeMetadataHolder}
+	 * is used if null.
+	 * @param bucketWidth The width of the buckets of the distances of the first label.
+	 * @param bucketCount The count of the buckets.
+	 * @param halfLife The half-life of the weight of a time slot in time slots.
+	 * {@link Double#POSITIVE_INFINITY} for no decay.
+	 */
+	public DecayedCorrelationLevel(LabelPair labels, KnowledgeMetadataRegistry metadata,
+			double bucketWidth, int bucketCount, double halfLife){
+		super(labels, metadata);
+		if(!(bucketWidth > 0)){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "bucketWidth"));
+		}
+		if(bucketCount < 1){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "bucketCount"));
+		}
+		if(!(halfLife > 0)){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "halfLife"));
+		}
+
+		this.bucketWidth = bucketWidth;
+		this.halfLife = halfLife;
+		closeWeights = new double[bucketCount];
+		totalWeights = new double[bucketCount];
+		referenceSlot = Long.MIN_VALUE;
+		lastSlots = new LongObjectMap<>();
+	}
+
+	/**
+	 * The passed values will contribute to the estimated correlation with the weight
+	 * of the given time slot.
+	 * @param component1Value1 The value from one component identified by the first label.
+	 * @param component2Value1 The value from the other component identified by the first label.
+	 * @param component1Value2 The value from one component identified by the second label.
+	 * @param component2Value2 The value from the other component identified by the second label.
+	 * @param timeSlot The time slot the values were taken in.
+	 */
+	public void addValues(Object component1Value1, Object component2Value1,
+			Object component1Value2, Object component2Value2, long timeSlot){
+		KnowledgeMetadataRegistry metadata = getMetadata();
+		double distance1 = metadata.distance(getLabelPair().getFirstLabel(), component1Value1, component2Value1);
+		DistanceClass distanceClass2 = metadata.classifyDistance(
+				getLabelPair().getSecondLabel(), component1Value2, component2Value2);
+		addDistance(distance1, distanceClass2, timeSlot);
+	}
+
+	/**
+	 * The given distance of the values of the first label and the class of the distance
+	 * of the values of the second label taken in the same time slot will contribute
+	 * to the estimated correlation with the weight of the time slot.
+	 * @param distance1 The distance of the values identified by the first label.
+	 * @param distanceClass2 The class of the distance of the values identified by the second label.
+	 * @param timeSlot The time slot the values were taken in.
+	 */
+	public void addDistance(double distance1, DistanceClass distanceClass2, long timeSlot){
+		if(Double.isNaN(distance1) || distanceClass2 == DistanceClass.Undefined){
+			return;
+		}
+
+		double weight = getWeight(timeSlot);
+		int bucket = (int) Math.min(closeWeights.length - 1, Math.max(0, distance1 / bucketWidth));
+		totalWeights[bucket] += weight;
+		if(distanceClass2 == DistanceClass.Close){
+			closeWeights[bucket] += weight;
+		}
+
+		KnowledgeMetadata metadata1 = getMetadata().getMetadata(getLabelPair().getFirstLabel());
+		if(metadata1 != null && metadata1.classify(distance1) == DistanceClass.Close){
+			data1CloseWeight += weight;
+			if(distanceClass2 == DistanceClass.Close){
+				data2CloseWeight += weight;
+			}
+		}
+	}
+
+	/**
+	 * Returns the distance boundary of the knowledge identified by the first label
+	 * that ensures the satisfaction of the confidence level of the knowledge identified
+	 * by the second label.
+	 * @return The upper edge of the last bucket that satisfies the confidence level.
+	 * Double.NaN if the confidence level can't be satisfied.
+	 */
+	public double getDistanceBoundary(){
+		double confidenceLevel = getMetadata().getConfidenceLevel(getLabelPair().getSecondLabel());
+		double close = 0;
+		double total = 0;
+		int boundaryBucket = -1;
+		for(int i = 0; i < totalWeights.length; i++){
+			close += closeWeights[i];
+			total += totalWeights[i];
+			if(totalWeights[i] > 0 && close / total >= confidenceLevel){
+				boundaryBucket = i;
+			}
+		}
+		return boundaryBucket < 0 ? Double.NaN : (boundaryBucket + 1) * bucketWidth;
+	}
+
+	/**
+	 * Returns the weighted ratio of the time slots in which the values identified by the second
+	 * label are close among the time slots in which the values identified by the first label are close.
+	 * @return The correlation level for the knowledge identified by the second label dependent
+	 * on the knowledge identified by the first label.
+	 */
+	@Override
+	public double getCorrelationLevel(){
+		return data2CloseWeight / data1CloseWeight;
+	}
+
+	/**
+	 * Returns the last time slot added for the given component pair.
+	 * @param componentPair The key of the component pair.
+	 * @return The last time slot added for the given component pair.
+	 * {@link Long#MIN_VALUE} if no time slot was added.
+	 */
+	public long getLastSlot(long componentPair){
+		long[] slot = lastSlots.get(componentPair);
+		return slot == null ? Long.MIN_VALUE : slot[0];
+	}
+
+	/**
+	 * Set the last time slot added for the given component pair.
+	 * @param componentPair The key of the component pair.
+	 * @param slot The last time slot added for the given component pair.
+	 */
+	public void setLastSlot(long componentPair, long slot){
+		long[] lastSlot = lastSlots.get(componentPair);
+		if(lastSlot == null){
+			lastSlot = new long[1];
+			lastSlots.put(componentPair, lastSlot);
+		}
+		lastSlot[0] = slot;
+	}
+
+	/**
+	 * Forget the last time slots of all the component pairs other than the given ones.
+	 * Used to drop the component pairs whose components left the system or no longer
+	 * hold the knowledge fields.
+	 * @param componentPairs The keys of the component pairs to be kept.
+	 */
+	public void retain(long[] componentPairs){
+		long[] kept = Arrays.copyOf(componentPairs, componentPairs.length);
+		Arrays.sort(kept);
+		for(long key : lastSlots.keys()){
+			if(Arrays.binarySearch(kept, key) < 0){
+				lastSlots.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Returns the weight of the given time slot relative to the {@link #referenceSlot}.
+	 * Rescales the weights to the given time slot if the weight would be too large.
+	 * @param timeSlot The time slot.
+	 * @return The weight of the given time slot.
+	 */
+	private double getWeight(long timeSlot){
+		if(referenceSlot == Long.MIN_VALUE){
+			referenceSlot = timeSlot;
+		}
+		double exponent = (timeSlot - referenceSlot) / halfLife;
+		if(exponent > RESCALE_EXPONENT){
+			double scale = Math.pow(2, -exponent);
+			for(int i = 0; i < totalWeights.length; i++){
+				closeWeights[i] *= scale;
+				totalWeights[i] *= scale;
+			}
+			data1CloseWeight *= scale;
+			data2CloseWeight *= scale;
+			referenceSlot = timeSlot;
+			exponent = 0;
+		}
+		return Math.pow(2, exponent);
+	}
+
+	/**
+	 * Write the instance followed by the count of the component pairs
+	 * and theirs keys and last time slots.
+	 * @param out The stream to write to.
+	 * @throws IOException If the instance can't be written.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		long[] keys = lastSlots.keys();
+		out.writeInt(keys.length);
+		for(long key : keys){
+			out.writeLong(key);
+			out.writeLong(lastSlots.get(key)[0]);
+		}
+	}
+
+	/**
+	 * Read the instance written by the {@link #writeObject(ObjectOutputStream)}.
+	 * @param in The stream to read from.
+	 * @throws IOException If the instance can't be read.
+	 * @throws ClassNotFoundException If a class of the instance can't be found.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		lastSlots = new LongObjectMap<>();
+		int count = in.readInt();
+		for(int i = 0; i < count; i++){
+			long key = in.readLong();
+			lastSlots.put(key, new long[]{in.readLong()});
+		}
+	}
+}
@@ -0,0 +1,218 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cz.cuni.mff.d3s.metaadaptation.correlation.ConnectorManager.MediatedKnowledge;
+
+/**
+ * Keeps track of the correlation connectors deployed through a {@link ConnectorManager}
+ * and of the ports added for them. The changes requested during a single execution are
+ * collected into a delta and applied at once by the {@link #commit()}. Only the actual
+ * changes are applied:
+ * <ul>
+ * <li>a connector is deployed only if it isn't deployed already, otherwise the boundary
+ * of its {@link CorrelationFilter} is updated in place,</li>
+ * <li>a connector is undeployed only if it is deployed,</li>
+ * <li>a port is added to a component only if the component doesn't have it yet.</li>
+ * </ul>
+ * The ports added are checked against the {@link Component#getPorts()} of theirs components,
+ * so a port removed from a component is added again by the next deployment of its connector.
+ * A port is assumed to be kept if the component returned no port when it was added.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class DeployedConnectors {
+
+	/**
+	 * The connectors of the system.
+	 */
+	private final ConnectorManager connectorManager;
+	/**
+	 * The filters of the deployed connectors.
+	 */
+	private final Map<MediatedKnowledge, CorrelationFilter> deployed;
+	/**
+	 * The ports added to the components for the individual deployed connectors.
+	 */
+	private final Map<MediatedKnowledge, Map<Component, ComponentPort>> componentPorts;
+
+	/**
+	 * The connectors to be deployed by the next commit.
+	 */
+	private final Map<MediatedKnowledge, CorrelationFilter> pendingDeployments;
+	/**
+	 * The new boundaries of the deployed connectors to be set by the next commit.
+	 */
+	private final Map<MediatedKnowledge, Double> pendingBoundaries;
+	/**
+	 * The connectors to be undeployed by the next commit.
+	 */
+	private final Set<MediatedKnowledge> pendingUndeployments;
+	/**
+	 * The connectors whose ports are to be added to the components by the next commit.
+	 */
+	private final Map<Component, Set<MediatedKnowledge>> pendingPorts;
+
+	/**
+	 * Create a new instance of {@link DeployedConnectors} with no connector deployed.
+	 * @param connectorManager The connectors of the system.
+	 */
+	public DeployedConnectors(ConnectorManager connectorManager){
+		if(connectorManager == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "connectorManager"));
+		}
+
+		this.connectorManager = connectorManager;
+		deployed = new HashMap<>();
+		componentPorts = new HashMap<>();
+		pendingDeployments = new LinkedHashMap<>();
+		pendingBoundaries = new LinkedHashMap<>();
+		pendingUndeployments = new LinkedHashSet<>();
+		pendingPorts = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Indicates whether the connector mediating the given knowledge is deployed.
+	 * @param mediatedKnowledge The knowledge mediated by the connector.
+	 * @return True if the connector is deployed.
+	 */
+	public boolean isDeployed(MediatedKnowledge mediatedKnowledge){
+		return deployed.containsKey(mediatedKnowledge);
+	}
+
+	/**
+	 * Returns the filter of the deployed connector mediating the given knowledge.
+	 * @param mediatedKnowledge The knowledge mediated by the connector.
+	 * @return The filter of the deployed connector. Null if the connector isn't deployed.
+	 */
+	public CorrelationFilter getFilter(MediatedKnowledge mediatedKnowledge){
+		return deployed.get(mediatedKnowledge);
+	}
+
+	/**
+	 * Request the connector mediating the given knowledge to be deployed with the given boundary
+	 * and its port to be added to the given components. The port is added only to the components
+	 * that don't have the port added by a previous deployment.
+	 * @param mediatedKnowledge The knowledge mediated by the connector.
+	 * @param metadata The metadata of the filtering knowledge field.
+	 * @param boundary The boundary of the connector filter.
+	 * @param components The components that should have the port of the connector.
+	 */
+	public void deploy(MediatedKnowledge mediatedKnowledge, KnowledgeMetadata metadata,
+			double boundary, List<Component> components){
+		pendingUndeployments.remove(mediatedKnowledge);
+		if(deployed.containsKey(mediatedKnowledge)){
+			pendingBoundaries.put(mediatedKnowledge, boundary);
+		} else {
+			pendingDeployments.put(mediatedKnowledge, new CorrelationFilter(
+					mediatedKnowledge.correlationFilter, metadata, boundary));
+		}
+
+		Map<Component, ComponentPort> ported = componentPorts.get(mediatedKnowledge);
+		Map<Component, ComponentPort> kept = new HashMap<>();
+		for(Component component : components){
+			if(ported != null && ported.containsKey(component)){
+				ComponentPort port = ported.get(component);
+				if(port == null || component.getPorts().contains(port)){
+					kept.put(component, port);
+					continue;
+				}
+			}
+			Set<MediatedKnowledge> connectors = pendingPorts.get(component);
+			if(connectors == null){
+				connectors = new LinkedHashSet<>();
+				pendingPorts.put(component, connectors);
+			}
+			connectors.add(mediatedKnowledge);
+		}
+		componentPorts.put(mediatedKnowledge, kept);
+	}
+
+	/**
+	 * Request the connector mediating the given knowledge to be undeployed.
+	 * The ports of the connector are not removed from the components, but they are
+	 * forgotten, so they are added again if the connector is deployed again.
+	 * @param mediatedKnowledge The knowledge mediated by the connector.
+	 */
+	public void undeploy(MediatedKnowledge mediatedKnowledge){
+		pendingDeployments.remove(mediatedKnowledge);
+		pendingBoundaries.remove(mediatedKnowledge);
+		for(Set<MediatedKnowledge> connectors : pendingPorts.values()){
+			connectors.remove(mediatedKnowledge);
+		}
+		if(deployed.containsKey(mediatedKnowledge)){
+			pendingUndeployments.add(mediatedKnowledge);
+		} else {
+			componentPorts.remove(mediatedKnowledge);
+		}
+	}
+
+	/**
+	 * Apply the changes requested since the last commit.
+	 * @return The count of the calls made to the connectors and components.
+	 */
+	public int commit(){
+		int calls = 0;
+
+		for(MediatedKnowledge mediatedKnowledge : pendingUndeployments){
+			connectorManager.addConnector(null, mediatedKnowledge);
+			deployed.remove(mediatedKnowledge);
+			componentPorts.remove(mediatedKnowledge);
+			calls++;
+		}
+
+		for(Map.Entry<MediatedKnowledge, Double> boundary : pendingBoundaries.entrySet()){
+			deployed.get(boundary.getKey()).setBoundary(boundary.getValue());
+		}
+
+		for(Map.Entry<MediatedKnowledge, CorrelationFilter> deployment : pendingDeployments.entrySet()){
+			MediatedKnowledge mediatedKnowledge = deployment.getKey();
+			DynamicConnector connector = connectorManager.addConnector(deployment.getValue(), mediatedKnowledge);
+			Set<String> knowledge = getConnectorKnowledge(mediatedKnowledge);
+			connector.addPort(knowledge, Kind.Comsumer);
+			connector.addPort(knowledge, Kind.Producer);
+			deployed.put(mediatedKnowledge, deployment.getValue());
+			calls += 3;
+		}
+
+		for(Map.Entry<Component, Set<MediatedKnowledge>> ports : pendingPorts.entrySet()){
+			Component component = ports.getKey();
+			Map<Set<String>, ComponentPort> added = new HashMap<>();
+			for(MediatedKnowledge mediatedKnowledge : ports.getValue()){
+				Set<String> knowledge = getConnectorKnowledge(mediatedKnowledge);
+				if(!added.containsKey(knowledge)){
+					added.put(knowledge, component.addPort(knowledge));
+					calls++;
+				}
+				Map<Component, ComponentPort> ported = componentPorts.get(mediatedKnowledge);
+				if(ported != null){
+					ported.put(component, added.get(knowledge));
+				}
+			}
+		}
+
+		pendingUndeployments.clear();
+		pendingBoundaries.clear();
+		pendingDeployments.clear();
+		pendingPorts.clear();
+
+		return calls;
+	}
+
+	/**
+	 * Returns the knowledge of the ports of the connector mediating the given knowledge.
+	 * @param mediatedKnowledge The knowledge mediated by the connector.
+	 * @return The knowledge of the ports of the connector.
+	 */
+	private static Set<String> getConnectorKnowledge(MediatedKnowledge mediatedKnowledge){
+		return new HashSet<String>(Arrays.asList(new String[]{
+				mediatedKnowledge.correlationFilter, mediatedKnowledge.correlationSubject}));
+	}
+}
@@ -0,0 +1,289 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.Random;
+
+/**
+ * Keeps the distances of a single {@link LabelPair} ordered and answers the distance
+ * boundary that satisfies the confidence level without sorting the distances again.
+ * <p>
+ * The distances are held in a treap ordered by the distance and the order of insertion.
+ * Each subtree knows the count of its distances, the count of its close distances and
+ * the greatest margin by which a position within the subtree satisfies the confidence
+ * level. The greatest position satisfying the confidence level is thus found in
+ * logarithmic time, as well as the distances are inserted and removed.
+ * </p>
+ * <p>
+ * The correlation at the position p (counted from 0) is the count of close distances up
+ * to and including the position p divided by p, the same as it is computed by the
+ * {@link CorrelationManager} from the sorted list of distances.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class DistanceOrderStatistics {
+
+	/**
+	 * The tolerance of the margin used when searching the tree. The candidate positions
+	 * found within the tolerance are verified exactly.
+	 */
+	private static final double TOLERANCE = 1e-9;
+
+	/**
+	 * A node of the treap holding a single distance.
+	 */
+	private static class Node {
+		/**
+		 * The distance held by the node.
+		 */
+		final double distance;
+		/**
+		 * The order of insertion of the distance. Orders equal distances.
+		 */
+		final long sequence;
+		/**
+		 * Indicates whether the distance class of the second knowledge field is close.
+		 */
+		final boolean close;
+		/**
+		 * The heap priority of the node.
+		 */
+		final int priority;
+
+		Node left;
+		Node right;
+		/**
+		 * The count of distances in the subtree.
+		 */
+		int count;
+		/**
+		 * The count of close distances in the subtree.
+		 */
+		int closeCount;
+		/**
+		 * The greatest margin (close count - confidence level * position) over the positions
+		 * within the subtree, with the positions and close counts taken relative to the subtree.
+		 */
+		double maxMargin;
+
+		Node(double distance, long sequence, boolean close, int priority){
+			this.distance = distance;
+			this.sequence = sequence;
+			this.close = close;
+			this.priority = priority;
+		}
+	}
+
+	/**
+	 * The confidence level the distance boundary has to satisfy.
+	 */
+	private final double confidenceLevel;
+	/**
+	 * The source of the heap priorities of the nodes.
+	 */
+	private final Random random;
+	/**
+	 * The root of the treap.
+	 */
+	private Node root;
+	/**
+	 * The order of insertion assigned to the next distance.
+	 */
+	private long nextSequence;
+
+	/**
+	 * The position of the node found by the last search.
+	 */
+	private int foundPosition;
+	/**
+	 * The count of close distances up to and including the node found by the last search.
+	 */
+	private int foundCloseCount;
+
+	/**
+	 * Create a new empty instance of {@link DistanceOrderStatistics}.
+	 * @param confidenceLevel The confidence level the distance boundary has to satisfy.
+	 */
+	public DistanceOrderStatistics(double confidenceLevel){
+		this.confidenceLevel = confidenceLevel;
+		random = new Random();
+		root = null;
+		nextSequence = 0;
+	}
+
+	/**
+	 * Returns the confidence level the distance boundary has to satisfy.
+	 * @return The confidence level the distance boundary has to satisfy.
+	 */
+	public double getConfidenceLevel(){
+		return confidenceLevel;
+	}
+
+	/**
+	 * Returns the count of the distances held.
+	 * @return The count of the distances held.
+	 */
+	public int size(){
+		return root == null ? 0 : root.count;
+	}
+
+	/**
+	 * Insert the given distance.
+	 * @param distancePair The distance to be inserted.
+	 * @return The order of insertion of the distance, needed to remove it.
+	 */
+	public long insert(DistancePair distancePair){
+		Node node = new Node(distancePair.distance, nextSequence++,
+				distancePair.distanceClass == CorrelationLevel.DistanceClass.Close, random.nextInt());
+		update(node);
+		Node[] parts = split(root, node.distance, node.sequence);
+		root = merge(merge(parts[0], node), parts[1]);
+		return node.sequence;
+	}
+
+	/**
+	 * Remove the given distance.
+	 * @param distance The distance to be removed.
+	 * @param sequence The order of insertion of the distance.
+	 */
+	public void remove(double distance, long sequence){
+		Node[] lower = split(root, distance, sequence);
+		Node[] upper = split(lower[1], distance, sequence + 1);
+		root = merge(lower[0], upper[1]);
+	}
+
+	/**
+	 * Returns the greatest distance that satisfies the confidence level.
+	 * @return The greatest distance that satisfies the confidence level.
+	 * Double.NaN if the confidence level can't be satisfied.
+	 */
+	public double getBoundary(){
+		if(Double.isNaN(confidenceLevel)){
+			return Double.NaN;
+		}
+		int limit = size();
+		while(limit > 0){
+			Node found = findLast(root, 0, 0, limit);
+			if(found == null){
+				break;
+			}
+			double correlation = ((double) foundCloseCount) / ((double) foundPosition);
+			if(correlation >= confidenceLevel){
+				return found.distance;
+			}
+			// The candidate satisfies the confidence level only within the tolerance
+			limit = foundPosition;
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * Finds the greatest position before the limit whose margin is within the tolerance.
+	 * @param node The root of the subtree to search.
+	 * @param countBefore The count of distances preceding the subtree.
+	 * @param closeBefore The count of close distances preceding the subtree.
+	 * @param limit The position before which the search is performed.
+	 * @return The node at the found position. Null if there is no such position.
+	 */
+	private Node findLast(Node node, int countBefore, int closeBefore, int limit){
+		if(node == null || countBefore >= limit
+				|| closeBefore - confidenceLevel * countBefore + node.maxMargin < -TOLERANCE){
+			return null;
+		}
+
+		int position = countBefore + count(node.left);
+		int closeCount = closeBefore + closeCount(node.left) + (node.close ? 1 : 0);
+		Node found = findLast(node.right, position + 1, closeCount, limit);
+		if(found != null){
+			return found;
+		}
+		if(position < limit && closeCount - confidenceLevel * position >= -TOLERANCE){
+			foundPosition = position;
+			foundCloseCount = closeCount;
+			return node;
+		}
+		return findLast(node.left, countBefore, closeBefore, limit);
+	}
+
+	/**
+	 * Split the given subtree into the distances preceding the given key and the rest.
+	 * @param node The root of the subtree to split.
+	 * @param distance The distance of the key.
+	 * @param sequence The order of insertion of the key.
+	 * @return The roots of the preceding and the following part.
+	 */
+	private Node[] split(Node node, double distance, long sequence){
+		if(node == null){
+			return new Node[]{null, null};
+		}
+		int cmp = Double.compare(node.distance, distance);
+		if(cmp < 0 || (cmp == 0 && node.sequence < sequence)){
+			Node[] parts = split(node.right, distance, sequence);
+			node.right = parts[0];
+			update(node);
+			parts[0] = node;
+			return parts;
+		} else {
+			Node[] parts = split(node.left, distance, sequence);
+			node.left = parts[1];
+			update(node);
+			parts[1] = node;
+			return parts;
+		}
+	}
+
+	/**
+	 * Merge the given subtrees. All the distances in the first subtree precede
+	 * the distances in the second one.
+	 * @param first The root of the preceding subtree.
+	 * @param second The root of the following subtree.
+	 * @return The root of the merged tree.
+	 */
+	private Node merge(Node first, Node second){
+		if(first == null){
+			return second;
+		}
+		if(second == null){
+			return first;
+		}
+		if(first.priority > second.priority){
+			first.right = merge(first.right, second);
+			update(first);
+			return first;
+		} else {
+			second.left = merge(first, second.left);
+			update(second);
+			return second;
+		}
+	}
+
+	/**
+	 * Recompute the aggregates of the given node from its children.
+	 * @param node The node to be updated.
+	 */
+	private void update(Node node){
+		int leftCount = count(node.left);
+		int leftClose = closeCount(node.left);
+		int selfClose = leftClose + (node.close ? 1 : 0);
+
+		double maxMargin = selfClose - confidenceLevel * leftCount;
+		if(node.left != null){
+			maxMargin = Math.max(maxMargin, node.left.maxMargin);
+		}
+		if(node.right != null){
+			maxMargin = Math.max(maxMargin,
+					selfClose - confidenceLevel * (leftCount + 1) + node.right.maxMargin);
+		}
+
+		node.count = leftCount + 1 + count(node.right);
+		node.closeCount = selfClose + closeCount(node.right);
+		node.maxMargin = maxMargin;
+	}
+
+	private static int count(Node node){
+		return node == null ? 0 : node.count;
+	}
+
+	private static int closeCount(Node node){
+		return node == null ? 0 : node.closeCount;
+	}
+}
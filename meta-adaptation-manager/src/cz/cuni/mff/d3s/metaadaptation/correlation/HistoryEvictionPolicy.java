@@ -0,0 +1,20 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+/**
+ * Enumerates the strategies of making room in a full {@link KnowledgeHistory}.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public enum HistoryEvictionPolicy {
+	/**
+	 * The oldest value in the history is dropped to make room for the new one.
+	 */
+	OldestFirst,
+	/**
+	 * The history is downsampled so that only the first value of each time slot
+	 * is kept. If each time slot already holds a single value, every other value
+	 * in the older half of the history is dropped. The covered time span is
+	 * preserved at the expense of the resolution of the older values.
+	 */
+	SlotDownsampling;
+}
@@ -0,0 +1,79 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aligns the histories of two knowledge fields of two components by time slots.
+ * The histories are joined in a single pass over theirs {@link TimeSlotIndex}es,
+ * which makes the alignment linear in the length of the histories.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class KnowledgeAligner {
+
+	/**
+	 * Provides the quadruples of values for all the time slots common to all the given
+	 * histories, ordered by the time slots. Each quadruple holds the earliest values
+	 * of the respective time slot.
+	 * @param c1Values1 The index of the values of component 1 for label 1.
+	 * @param c1Values2 The index of the values of component 1 for label 2.
+	 * @param c2Values1 The index of the values of component 2 for label 1.
+	 * @param c2Values2 The index of the values of component 2 for label 2.
+	 * @return The quadruples of values for all the common time slots.
+	 */
+	public static List<KnowledgeQuadruple> align(TimeSlotIndex c1Values1, TimeSlotIndex c1Values2,
+			TimeSlotIndex c2Values1, TimeSlotIndex c2Values2){
+		return align(c1Values1, c1Values2, c2Values1, c2Values2, Long.MIN_VALUE);
+	}
+
+	/**
+	 * Provides the quadruples of values for all the time slots common to all the given
+	 * histories that follow the given time slot, ordered by the time slots. Each quadruple
+	 * holds the earliest values of the respective time slot.
+	 * @param c1Values1 The index of the values of component 1 for label 1.
+	 * @param c1Values2 The index of the values of component 1 for label 2.
+	 * @param c2Values1 The index of the values of component 2 for label 1.
+	 * @param c2Values2 The index of the values of component 2 for label 2.
+	 * @param afterSlot Only the time slots following this one are aligned.
+	 * @return The quadruples of values for all the common time slots following the given one.
+	 */
+	public static List<KnowledgeQuadruple> align(TimeSlotIndex c1Values1, TimeSlotIndex c1Values2,
+			TimeSlotIndex c2Values1, TimeSlotIndex c2Values2, long afterSlot){
+		List<KnowledgeQuadruple> quadruples = new ArrayList<>();
+
+		int i11 = 0, i12 = 0, i21 = 0, i22 = 0;
+		if(afterSlot != Long.MIN_VALUE){
+			i11 = c1Values1.ceiling(afterSlot + 1);
+			i12 = c1Values2.ceiling(afterSlot + 1);
+			i21 = c2Values1.ceiling(afterSlot + 1);
+			i22 = c2Values2.ceiling(afterSlot + 1);
+		}
+		while(i11 < c1Values1.size() && i12 < c1Values2.size()
+				&& i21 < c2Values1.size() && i22 < c2Values2.size()){
+			long s11 = c1Values1.getSlot(i11);
+			long s12 = c1Values2.getSlot(i12);
+			long s21 = c2Values1.getSlot(i21);
+			long s22 = c2Values2.getSlot(i22);
+			long slot = Math.max(Math.max(s11, s12), Math.max(s21, s22));
+
+			if(s11 == slot && s12 == slot && s21 == slot && s22 == slot){
+				quadruples.add(new KnowledgeQuadruple(
+						c1Values1.getPosition(i11), c1Values2.getPosition(i12),
+						c2Values1.getPosition(i21), c2Values2.getPosition(i22), slot));
+				i11++;
+				i12++;
+				i21++;
+				i22++;
+			} else {
+				// Advance all the indexes behind the greatest time slot
+				if(s11 < slot) i11++;
+				if(s12 < slot) i12++;
+				if(s21 < slot) i21++;
+				if(s22 < slot) i22++;
+			}
+		}
+
+		return quadruples;
+	}
+}
@@ -0,0 +1,407 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * Holds a bounded history of values of a single knowledge field of a single component.
+ * The values are kept in a ring buffer ordered by the time of their insertion.
+ * The history is capped by the count of the values it holds and by the time horizon
+ * measured back from the latest timestamp seen. When the history is full the values
+ * are evicted according to the {@link HistoryEvictionPolicy}.
+ * <p>
+ * The timestamps and operational flags are stored in columns shared by all the
+ * implementations. The storage of the values themselves is left to the subclasses.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public abstract class KnowledgeHistory {
+
+	/**
+	 * The initial size of the ring buffer. The buffer grows up to the {@link #capacity}.
+	 */
+	private static final int INITIAL_BUFFER_SIZE = 16;
+
+	/**
+	 * The maximal count of values held in the history.
+	 */
+	private final int capacity;
+	/**
+	 * The time span in milliseconds for which the values are held.
+	 */
+	private final long timeHorizon;
+	/**
+	 * The strategy of making room in the full history.
+	 */
+	private final HistoryEvictionPolicy evictionPolicy;
+	/**
+	 * Time slot duration in milliseconds used by the {@link HistoryEvictionPolicy#SlotDownsampling}.
+	 */
+	private final long timeSlotDuration;
+
+	/**
+	 * The ring buffer of the timestamps of the values.
+	 */
+	private long[] timestamps;
+	/**
+	 * The ring buffer of the operational flags of the values.
+	 */
+	private BitSet operational;
+	/**
+	 * The position of the oldest value in the ring buffer.
+	 */
+	private int head;
+	/**
+	 * The count of values held in the history.
+	 */
+	private int size;
+	/**
+	 * The latest timestamp seen by the history.
+	 */
+	private long latestTimestamp;
+	/**
+	 * The lazily built index of the time slots covered by the history.
+	 * Dropped whenever the history changes.
+	 */
+	private volatile TimeSlotIndex slotIndex;
+	/**
+	 * The version of the data held in the history. Incremented on every change.
+	 */
+	private volatile long version;
+
+	/**
+	 * Create a new empty instance of {@link KnowledgeHistory}.
+	 * @param capacity The maximal count of values held in the history.
+	 * @param timeHorizon The time span in milliseconds for which the values are held.
+	 * @param evictionPolicy The strategy of making room in the full history.
+	 * @param timeSlotDuration Time slot duration in milliseconds.
+	 */
+	protected KnowledgeHistory(int capacity, long timeHorizon,
+			HistoryEvictionPolicy evictionPolicy, long timeSlotDuration){
+		if(capacity < 1){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "capacity"));
+		}
+		if(timeHorizon < 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is negative.", "timeHorizon"));
+		}
+		if(evictionPolicy == null){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is null.", "evictionPolicy"));
+		}
+
+		this.capacity = capacity;
+		this.timeHorizon = timeHorizon;
+		this.evictionPolicy = evictionPolicy;
+		this.timeSlotDuration = timeSlotDuration;
+
+		int bufferSize = Math.min(capacity, INITIAL_BUFFER_SIZE);
+		timestamps = new long[bufferSize];
+		operational = new BitSet(bufferSize);
+		head = 0;
+		size = 0;
+		latestTimestamp = Long.MIN_VALUE;
+		version = 0;
+	}
+
+	/**
+	 * Append the given value to the history. Evicts the values beyond the time horizon
+	 * and makes room for the new value if the history is full.
+	 * @param value The value to be appended.
+	 */
+	public void add(CorrelationMetadataWrapper<?> value){
+		add(value.getValue(), value.getTimestamp(), value.isOperational());
+	}
+
+	/**
+	 * Append the given value to the history. Evicts the values beyond the time horizon
+	 * and makes room for the new value if the history is full.
+	 * @param value The value to be appended.
+	 * @param timestamp The time when the value has been obtained.
+	 * @param isOperational Whether the sensor that provided the value works.
+	 */
+	public void add(Object value, long timestamp, boolean isOperational){
+		slotIndex = null;
+		latestTimestamp = Math.max(latestTimestamp, timestamp);
+		evictBeyondHorizon();
+
+		if(size == capacity){
+			evict();
+		} else if(size == timestamps.length){
+			grow();
+		}
+
+		int position = (head + size) % timestamps.length;
+		timestamps[position] = timestamp;
+		operational.set(position, storeValue(position, value) && isOperational);
+		size++;
+		version++;
+	}
+
+	/**
+	 * Returns the version of the data held in the history. The version increases
+	 * monotonically with every change of the history, including the evictions,
+	 * so two equal versions mean the history holds the same values.
+	 * @return The version of the data held in the history.
+	 */
+	public long getVersion(){
+		return version;
+	}
+
+	/**
+	 * Returns the count of values held in the history.
+	 * @return The count of values held in the history.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Returns the timestamp of the value at the given position.
+	 * The oldest value is at the position 0.
+	 * @param index The position of the value.
+	 * @return The timestamp of the value at the given position.
+	 */
+	public long getTimestamp(int index){
+		return timestamps[position(index)];
+	}
+
+	/**
+	 * Indicates whether the sensor that provided the value at the given position works.
+	 * The oldest value is at the position 0.
+	 * @param index The position of the value.
+	 * @return True if the sensor worked. False if the sensor malfunctioned.
+	 */
+	public boolean isOperational(int index){
+		return operational.get(position(index));
+	}
+
+	/**
+	 * Returns the value at the given position. The oldest value is at the position 0.
+	 * @param index The position of the value.
+	 * @return The value at the given position.
+	 */
+	public Object getValue(int index){
+		return loadValue(position(index));
+	}
+
+	/**
+	 * Indicates whether the given sample is the latest value of the history, i.e. the latest
+	 * value has the same timestamp, operational flag and an equal value. Numbers are compared
+	 * by their double value in numeric histories.
+	 * @param value The value of the sample.
+	 * @param timestamp The time when the value has been obtained.
+	 * @param isOperational Whether the sensor that provided the value works.
+	 * @return True if the given sample is the latest value of the history.
+	 */
+	public boolean isLatest(Object value, long timestamp, boolean isOperational){
+		if(size == 0){
+			return false;
+		}
+		int last = size - 1;
+		if(getTimestamp(last) != timestamp || isOperational(last) != isOperational){
+			return false;
+		}
+		if(isNumeric() && value instanceof Number){
+			return Double.compare(getDoubleValue(last), ((Number) value).doubleValue()) == 0;
+		}
+		return Objects.equals(getValue(last), value);
+	}
+
+	/**
+	 * Returns the index of the time slots covered by the history. The index is built
+	 * lazily and reused until the history changes.
+	 * @param timeSlotDuration The time slot duration in milliseconds.
+	 * @return The index of the time slots covered by the history.
+	 */
+	public TimeSlotIndex getTimeSlotIndex(long timeSlotDuration){
+		TimeSlotIndex index = slotIndex;
+		if(index == null || index.getTimeSlotDuration() != timeSlotDuration){
+			index = new TimeSlotIndex(this, timeSlotDuration);
+			slotIndex = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Indicates whether the values are stored as primitive doubles and can be read
+	 * by {@link #getDoubleValue(int)} without boxing.
+	 * @return True if the values are stored as primitive doubles.
+	 */
+	public boolean isNumeric(){
+		return false;
+	}
+
+	/**
+	 * Returns the value at the given position as a primitive double.
+	 * Supported only by the histories for which {@link #isNumeric()} holds.
+	 * @param index The position of the value.
+	 * @return The value at the given position.
+	 */
+	public double getDoubleValue(int index){
+		throw new UnsupportedOperationException(String.format(
+				"The %s doesn't hold numeric values.", getClass().getSimpleName()));
+	}
+
+	/**
+	 * Copies the values at the given positions as primitive doubles into the given array.
+	 * Supported only by the histories for which {@link #isNumeric()} holds.
+	 * @param indices The positions of the values.
+	 * @param count The count of the valid entries in the indices array.
+	 * @param values The array the values are stored to from the position 0.
+	 */
+	public void getDoubleValues(int[] indices, int count, double[] values){
+		for(int i = 0; i < count; i++){
+			values[i] = getDoubleValue(indices[i]);
+		}
+	}
+
+	/**
+	 * Returns the current length of the ring buffer.
+	 * @return The current length of the ring buffer.
+	 */
+	protected final int bufferLength(){
+		return timestamps.length;
+	}
+
+	/**
+	 * Translates the position in the history to the position in the ring buffer.
+	 * @param index The position of the value in the history.
+	 * @return The position of the value in the ring buffer.
+	 */
+	protected final int position(int index){
+		if(index < 0 || index >= size){
+			throw new IndexOutOfBoundsException(String.format(
+					"Index: %d, Size: %d", index, size));
+		}
+		return (head + index) % timestamps.length;
+	}
+
+	/**
+	 * Store the value at the given position of the ring buffer.
+	 * @param position The position in the ring buffer.
+	 * @param value The value to be stored.
+	 * @return False if the value can't be represented by the history. Such value
+	 * is treated as not operational.
+	 */
+	protected abstract boolean storeValue(int position, Object value);
+
+	/**
+	 * Read the value at the given position of the ring buffer.
+	 * @param position The position in the ring buffer.
+	 * @return The value at the given position of the ring buffer.
+	 */
+	protected abstract Object loadValue(int position);
+
+	/**
+	 * Release the value at the given position of the ring buffer.
+	 * @param position The position in the ring buffer.
+	 */
+	protected abstract void clearValue(int position);
+
+	/**
+	 * Replace the ring buffer of the values by a new one of the given length that
+	 * contains the values from the given positions of the old ring buffer stored
+	 * from the position 0.
+	 * @param positions The positions of the values in the old ring buffer.
+	 * @param count The count of the valid entries in the positions array.
+	 * @param length The length of the new ring buffer.
+	 */
+	protected abstract void relocateValues(int[] positions, int count, int length);
+
+	/**
+	 * Drop the oldest values that are older than the {@link #timeHorizon}.
+	 */
+	private void evictBeyondHorizon(){
+		while(size > 0 && latestTimestamp - timestamps[head] > timeHorizon){
+			removeOldest();
+		}
+	}
+
+	/**
+	 * Make room for a new value according to the {@link #evictionPolicy}.
+	 */
+	private void evict(){
+		if(evictionPolicy == HistoryEvictionPolicy.SlotDownsampling){
+			downsample();
+			if(size < capacity){
+				return;
+			}
+		}
+		// Drop the oldest value also if nothing could be downsampled
+		removeOldest();
+	}
+
+	/**
+	 * Drop the oldest value in the history.
+	 */
+	private void removeOldest(){
+		clearValue(head);
+		head = (head + 1) % timestamps.length;
+		size--;
+	}
+
+	/**
+	 * Keep only the first value of each time slot. If no value is dropped this way
+	 * drop every other value in the older half of the history.
+	 */
+	private void downsample(){
+		int[] kept = new int[size];
+		int keptCnt = 0;
+		long lastSlot = Long.MIN_VALUE;
+		for(int i = 0; i < size; i++){
+			long slot = getTimestamp(i) / timeSlotDuration;
+			if(keptCnt == 0 || slot != lastSlot){
+				kept[keptCnt++] = position(i);
+				lastSlot = slot;
+			}
+		}
+
+		if(keptCnt == size){
+			keptCnt = 0;
+			int olderHalf = size / 2;
+			for(int i = 0; i < size; i++){
+				if(i >= olderHalf || i % 2 == 0){
+					kept[keptCnt++] = position(i);
+				}
+			}
+		}
+
+		relocate(kept, keptCnt, timestamps.length);
+	}
+
+	/**
+	 * Double the size of the ring buffer up to the {@link #capacity}.
+	 */
+	private void grow(){
+		int[] kept = new int[size];
+		for(int i = 0; i < size; i++){
+			kept[i] = position(i);
+		}
+		relocate(kept, size, (int) Math.min(capacity, 2L * timestamps.length));
+	}
+
+	/**
+	 * Replace the ring buffer by a new one of the given length that contains the values
+	 * from the given positions of the old ring buffer stored from the position 0.
+	 * @param positions The positions of the values in the old ring buffer.
+	 * @param count The count of the valid entries in the positions array.
+	 * @param length The length of the new ring buffer.
+	 */
+	private void relocate(int[] positions, int count, int length){
+		long[] newTimestamps = new long[length];
+		BitSet newOperational = new BitSet(length);
+		for(int i = 0; i < count; i++){
+			newTimestamps[i] = timestamps[positions[i]];
+			newOperational.set(i, operational.get(positions[i]));
+		}
+		relocateValues(positions, count, length);
+
+		timestamps = newTimestamps;
+		operational = newOperational;
+		head = 0;
+		size = count;
+	}
+}
@@ -0,0 +1,233 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A snapshot of the histories of knowledge of all the components in the system
+ * indexed by the IDs assigned by a {@link KnowledgeRegistry}. The histories are
+ * looked up by array indexing instead of hashing components and labels.
+ * <p>
+ * The snapshot refers to the same {@link KnowledgeHistory} instances as the map it is
+ * built from. It doesn't reflect the components and knowledge fields added later.
+ * Once built it can be read concurrently.
+ * </p>
+ * <p>
+ * If a {@link KnowledgeIndex} of the histories is given, the label pairs and the components
+ * holding them are looked up in the index instead of scanning all the components.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class KnowledgeHistoryStore {
+
+	/**
+	 * The registry of the IDs the snapshot is indexed by.
+	 */
+	private final KnowledgeRegistry registry;
+	/**
+	 * The histories indexed by the component ID and the label ID.
+	 */
+	private final KnowledgeHistory[][] histories;
+	/**
+	 * The IDs of the components in the snapshot in ascending order.
+	 */
+	private final int[] componentIds;
+	/**
+	 * The keys of the pairs of distinct labels that are both held by at least two components.
+	 */
+	private final long[] labelPairs;
+	/**
+	 * The duration of the time slots the histories are correlated within.
+	 */
+	private final long timeSlotDuration;
+	/**
+	 * The index of the knowledge fields held by the components. Null if the components are scanned.
+	 */
+	private final KnowledgeIndex index;
+
+	/**
+	 * Build the snapshot of the given histories. The components and labels that are not
+	 * registered yet are registered in the given registry.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param registry The registry of the IDs the snapshot is indexed by.
+	 * @param timeSlotDuration The duration of the time slots the histories are correlated
+	 * within in milliseconds.
+	 */
+	public KnowledgeHistoryStore(Map<Component, Map<String, KnowledgeHistory>> history,
+			KnowledgeRegistry registry, long timeSlotDuration){
+		this(history, registry, timeSlotDuration, null);
+	}
+
+	/**
+	 * Build the snapshot of the given histories. The components and labels that are not
+	 * registered yet are registered in the given registry.
+	 * @param history The history of knowledge of all the components in the system.
+	 * @param registry The registry of the IDs the snapshot is indexed by.
+	 * @param timeSlotDuration The duration of the time slots the histories are correlated
+	 * within in milliseconds.
+	 * @param index The index of the knowledge fields held by the components in the given
+	 * history, using the IDs of the given registry. Null to scan the components.
+	 */
+	public KnowledgeHistoryStore(Map<Component, Map<String, KnowledgeHistory>> history,
+			KnowledgeRegistry registry, long timeSlotDuration, KnowledgeIndex index){
+		if(history == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "history"));
+		}
+		if(registry == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "registry"));
+		}
+		if(timeSlotDuration <= 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "timeSlotDuration"));
+		}
+		this.registry = registry;
+		this.timeSlotDuration = timeSlotDuration;
+		this.index = index;
+
+		int[] ids = new int[history.size()];
+		int[][] labelIds = new int[history.size()][];
+		KnowledgeHistory[][] values = new KnowledgeHistory[history.size()][];
+		int componentCnt = 0;
+		for(Map.Entry<Component, Map<String, KnowledgeHistory>> component : history.entrySet()){
+			if(component.getValue() == null){
+				continue;
+			}
+			ids[componentCnt] = registry.getComponentId(component.getKey());
+			labelIds[componentCnt] = new int[component.getValue().size()];
+			values[componentCnt] = new KnowledgeHistory[component.getValue().size()];
+			int labelCnt = 0;
+			for(Map.Entry<String, KnowledgeHistory> field : component.getValue().entrySet()){
+				labelIds[componentCnt][labelCnt] = registry.getLabelId(field.getKey());
+				values[componentCnt][labelCnt] = field.getValue();
+				labelCnt++;
+			}
+			componentCnt++;
+		}
+
+		histories = new KnowledgeHistory[registry.getComponentCount()][];
+		for(int c = 0; c < componentCnt; c++){
+			KnowledgeHistory[] row = new KnowledgeHistory[registry.getLabelCount()];
+			for(int l = 0; l < labelIds[c].length; l++){
+				row[labelIds[c][l]] = values[c][l];
+			}
+			histories[ids[c]] = row;
+		}
+
+		componentIds = Arrays.copyOf(ids, componentCnt);
+		Arrays.sort(componentIds);
+		labelPairs = index != null ? index.getLabelPairs() : findLabelPairs(labelIds, componentCnt);
+	}
+
+	/**
+	 * Returns the duration of the time slots the histories are correlated within.
+	 * @return The duration of the time slots in milliseconds.
+	 */
+	public long getTimeSlotDuration(){
+		return timeSlotDuration;
+	}
+
+	/**
+	 * Returns the registry of the IDs the snapshot is indexed by.
+	 * @return The registry of the IDs the snapshot is indexed by.
+	 */
+	public KnowledgeRegistry getRegistry(){
+		return registry;
+	}
+
+	/**
+	 * Returns the history of the given knowledge field of the given component.
+	 * @param componentId The ID of the component.
+	 * @param labelId The ID of the knowledge field label.
+	 * @return The history of the given knowledge field of the given component.
+	 * Null if the component doesn't hold the knowledge field.
+	 */
+	public KnowledgeHistory getHistory(int componentId, int labelId){
+		if(componentId >= histories.length || histories[componentId] == null
+				|| labelId >= histories[componentId].length){
+			return null;
+		}
+		return histories[componentId][labelId];
+	}
+
+	/**
+	 * Returns the keys of all the pairs of distinct labels held by at least two components.
+	 * Both the orderings of each pair are included.
+	 * @return The keys of the label pairs created by the {@link KnowledgeRegistry#pairKey(int, int)}.
+	 */
+	public long[] getLabelPairs(){
+		return labelPairs.clone();
+	}
+
+	/**
+	 * Returns the IDs of all the components in the snapshot.
+	 * @return The IDs of all the components in ascending order.
+	 */
+	public int[] getComponents(){
+		return componentIds.clone();
+	}
+
+	/**
+	 * Returns the IDs of the components that hold both the labels packed in the given key.
+	 * @param labelPair The key of the label pair created by the {@link KnowledgeRegistry#pairKey(int, int)}.
+	 * @return The IDs of the components that hold both the labels in ascending order.
+	 */
+	public int[] getComponents(long labelPair){
+		int label1 = KnowledgeRegistry.firstId(labelPair);
+		int label2 = KnowledgeRegistry.secondId(labelPair);
+		int[] candidates = index != null ? index.getComponents(labelPair) : componentIds;
+		int[] result = new int[candidates.length];
+		int count = 0;
+		for(int componentId : candidates){
+			if(getHistory(componentId, label1) != null && getHistory(componentId, label2) != null){
+				result[count++] = componentId;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	/**
+	 * Returns the version of the data the correlation of the given label pair is computed from.
+	 * The version increases whenever any history of the two labels held by the components
+	 * that hold both the labels changes, or when another component starts to hold both the labels.
+	 * @param labelPair The key of the label pair created by the {@link KnowledgeRegistry#pairKey(int, int)}.
+	 * @return The version of the data of the label pair.
+	 */
+	public long getDataVersion(long labelPair){
+		int label1 = KnowledgeRegistry.firstId(labelPair);
+		int label2 = KnowledgeRegistry.secondId(labelPair);
+		long version = 0;
+		for(int componentId : getComponents(labelPair)){
+			version += getHistory(componentId, label1).getVersion() + getHistory(componentId, label2).getVersion();
+		}
+		return version;
+	}
+
+	/**
+	 * Finds the pairs of distinct labels held together by at least two components.
+	 * @param labelIds The IDs of the labels held by the individual components.
+	 * @param componentCnt The count of the valid entries in the labelIds array.
+	 * @return The keys of the found label pairs.
+	 */
+	private static long[] findLabelPairs(int[][] labelIds, int componentCnt){
+		LongObjectMap<int[]> counts = new LongObjectMap<>();
+		LongObjectMap<Boolean> pairs = new LongObjectMap<>();
+		for(int c = 0; c < componentCnt; c++){
+			for(int label1 : labelIds[c]){
+				for(int label2 : labelIds[c]){
+					if(label1 == label2){
+						continue;
+					}
+					long key = KnowledgeRegistry.pairKey(label1, label2);
+					int[] count = counts.get(key);
+					if(count == null){
+						counts.put(key, new int[]{1});
+					} else if(++count[0] == 2){
+						pairs.put(key, Boolean.TRUE);
+					}
+				}
+			}
+		}
+		return pairs.keys();
+	}
+}
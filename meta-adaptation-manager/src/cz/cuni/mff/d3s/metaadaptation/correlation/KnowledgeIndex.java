@@ -0,0 +1,162 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Inverted index from the labels of the knowledge fields to the components that hold them,
+ * indexed by the IDs assigned by a {@link KnowledgeRegistry}. The index also counts
+ * the components holding each pair of labels, so the pairs of labels held together
+ * by at least two components are known without scanning the components.
+ * <p>
+ * The index is kept up to date by adding each knowledge field when the component
+ * reports it for the first time. The knowledge fields are never removed.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class KnowledgeIndex {
+
+	/**
+	 * The components holding the individual labels indexed by the label IDs.
+	 */
+	private final List<BitSet> labelComponents;
+	/**
+	 * The labels held by the individual components indexed by the component IDs.
+	 */
+	private final List<BitSet> componentLabels;
+	/**
+	 * The count of the components holding both the labels of each label pair.
+	 * Keyed by the packed label IDs.
+	 */
+	private final LongObjectMap<int[]> coOccurrences;
+	/**
+	 * The keys of the pairs of distinct labels held by at least two components.
+	 */
+	private long[] labelPairs;
+	/**
+	 * The count of the valid entries in the {@link #labelPairs}.
+	 */
+	private int labelPairCnt;
+
+	/**
+	 * Create a new empty instance of {@link KnowledgeIndex}.
+	 */
+	public KnowledgeIndex(){
+		labelComponents = new ArrayList<>();
+		componentLabels = new ArrayList<>();
+		coOccurrences = new LongObjectMap<>();
+		labelPairs = new long[16];
+		labelPairCnt = 0;
+	}
+
+	/**
+	 * Record that the given component holds the given knowledge field.
+	 * @param componentId The ID of the component.
+	 * @param labelId The ID of the label of the knowledge field.
+	 * @return True if the knowledge field wasn't recorded for the component yet.
+	 */
+	public boolean add(int componentId, int labelId){
+		BitSet labels = get(componentLabels, componentId);
+		if(labels.get(labelId)){
+			return false;
+		}
+
+		for(int other = labels.nextSetBit(0); other >= 0; other = labels.nextSetBit(other + 1)){
+			count(KnowledgeRegistry.pairKey(labelId, other));
+			count(KnowledgeRegistry.pairKey(other, labelId));
+		}
+		labels.set(labelId);
+		get(labelComponents, labelId).set(componentId);
+		return true;
+	}
+
+	/**
+	 * Indicates whether the given component holds the given knowledge field.
+	 * @param componentId The ID of the component.
+	 * @param labelId The ID of the label of the knowledge field.
+	 * @return True if the component holds the knowledge field.
+	 */
+	public boolean contains(int componentId, int labelId){
+		return componentId < componentLabels.size() && componentLabels.get(componentId).get(labelId);
+	}
+
+	/**
+	 * Returns the count of the components holding both the labels packed in the given key.
+	 * @param labelPair The key of the label pair created by the {@link KnowledgeRegistry#pairKey(int, int)}.
+	 * @return The count of the components holding both the labels.
+	 */
+	public int getCoOccurrence(long labelPair){
+		int[] count = coOccurrences.get(labelPair);
+		return count == null ? 0 : count[0];
+	}
+
+	/**
+	 * Returns the keys of all the pairs of distinct labels held by at least two components.
+	 * Both the orderings of each pair are included.
+	 * @return The keys of the label pairs created by the {@link KnowledgeRegistry#pairKey(int, int)}.
+	 */
+	public long[] getLabelPairs(){
+		return Arrays.copyOf(labelPairs, labelPairCnt);
+	}
+
+	/**
+	 * Returns the IDs of the components that hold the given label.
+	 * @param labelId The ID of the label.
+	 * @return The IDs of the components that hold the label in ascending order.
+	 */
+	public int[] getComponents(int labelId){
+		if(labelId >= labelComponents.size()){
+			return new int[0];
+		}
+		return labelComponents.get(labelId).stream().toArray();
+	}
+
+	/**
+	 * Returns the IDs of the components that hold both the labels packed in the given key.
+	 * @param labelPair The key of the label pair created by the {@link KnowledgeRegistry#pairKey(int, int)}.
+	 * @return The IDs of the components that hold both the labels in ascending order.
+	 */
+	public int[] getComponents(long labelPair){
+		int label1 = KnowledgeRegistry.firstId(labelPair);
+		int label2 = KnowledgeRegistry.secondId(labelPair);
+		if(label1 >= labelComponents.size() || label2 >= labelComponents.size()){
+			return new int[0];
+		}
+		BitSet components = (BitSet) labelComponents.get(label1).clone();
+		components.and(labelComponents.get(label2));
+		return components.stream().toArray();
+	}
+
+	/**
+	 * Increments the count of the components holding both the labels of the given label pair.
+	 * @param labelPair The key of the label pair.
+	 */
+	private void count(long labelPair){
+		int[] count = coOccurrences.get(labelPair);
+		if(count == null){
+			coOccurrences.put(labelPair, new int[]{1});
+		} else if(++count[0] == 2){
+			if(labelPairCnt == labelPairs.length){
+				labelPairs = Arrays.copyOf(labelPairs, 2 * labelPairs.length);
+			}
+			labelPairs[labelPairCnt++] = labelPair;
+		}
+	}
+
+	/**
+	 * Returns the set at the given position of the given list, creating the empty sets
+	 * up to the position if needed.
+	 * @param sets The list of sets.
+	 * @param index The position of the set.
+	 * @return The set at the given position.
+	 */
+	private static BitSet get(List<BitSet> sets, int index){
+		while(sets.size() <= index){
+			sets.add(new BitSet());
+		}
+		return sets.get(index);
+	}
+}
@@ -0,0 +1,369 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * An append-only log of the knowledge samples collected by the {@link CorrelationManager}.
+ * Every numeric sample is stored as a fixed-width binary record of {@value #RECORD_SIZE} bytes:
+ * component ID, label ID, timestamp, value, flags and padding. The samples that are not
+ * numbers are not logged.
+ * <p>
+ * The records are collected in a buffer and written when the buffer is full or when
+ * the {@link #commit()} is called, which writes all the pending records at once and
+ * optionally forces them to the disk. The names of the components and labels are stored
+ * in a dictionary file next to the log. The dictionary entries are forced to the disk
+ * before any record referring to them, so every record in the log can be resolved.
+ * </p>
+ * <p>
+ * The log is read back by the {@link #replay(Path, Supplier)}, which maps the whole file
+ * and rebuilds the histories of all the logged components. A record truncated by a crash
+ * at the end of the log is ignored.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class KnowledgeLog implements Closeable {
+
+	/**
+	 * The size of a single record in bytes.
+	 */
+	public static final int RECORD_SIZE = 32;
+	/**
+	 * The flag of the records whose value was provided by a working sensor.
+	 */
+	private static final int OPERATIONAL_FLAG = 1;
+	/**
+	 * The kind of the dictionary entries naming a component.
+	 */
+	private static final byte COMPONENT_ENTRY = 0;
+	/**
+	 * The kind of the dictionary entries naming a label.
+	 */
+	private static final byte LABEL_ENTRY = 1;
+	/**
+	 * The count of the records buffered before they are written if not committed sooner.
+	 */
+	private static final int DEFAULT_BATCH_SIZE = 4096;
+
+	/**
+	 * The log file.
+	 */
+	private final FileChannel channel;
+	/**
+	 * The dictionary file.
+	 */
+	private final FileChannel dictionaryChannel;
+	/**
+	 * Specify whether the {@link #commit()} forces the written records to the disk.
+	 */
+	private final boolean force;
+	/**
+	 * The records waiting to be written.
+	 */
+	private final ByteBuffer records;
+	/**
+	 * The dictionary entries waiting to be written.
+	 */
+	private final List<byte[]> dictionaryEntries;
+	/**
+	 * The IDs of the logged components.
+	 */
+	private final Map<String, Integer> componentIds;
+	/**
+	 * The IDs of the logged labels.
+	 */
+	private final Map<String, Integer> labelIds;
+
+	/**
+	 * Open the given log to append the samples. The existing log is continued.
+	 * @param file The log file. The dictionary is stored in the file with the ".dict" suffix.
+	 * @param force Specify whether the {@link #commit()} forces the written records to the disk.
+	 * @throws IOException If the log can't be opened.
+	 */
+	public KnowledgeLog(Path file, boolean force) throws IOException {
+		this(file, force, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Open the given log to append the samples. The existing log is continued.
+	 * @param file The log file. The dictionary is stored in the file with the ".dict" suffix.
+	 * @param force Specify whether the {@link #commit()} forces the written records to the disk.
+	 * @param batchSize The count of the records buffered before they are written
+	 * if not committed sooner.
+	 * @throws IOException If the log can't be opened.
+	 */
+	public KnowledgeLog(Path file, boolean force, int batchSize) throws IOException {
+		if(file == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "file"));
+		}
+		if(batchSize <= 0){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is not positive.", "batchSize"));
+		}
+
+		this.force = force;
+		records = ByteBuffer.allocateDirect(batchSize * RECORD_SIZE);
+		dictionaryEntries = new ArrayList<>();
+		componentIds = new HashMap<>();
+		labelIds = new HashMap<>();
+
+		Path dictionary = getDictionaryFile(file);
+		long dictionarySize = 0;
+		if(Files.exists(dictionary)){
+			dictionarySize = readDictionary(dictionary, componentIds, labelIds);
+		}
+		dictionaryChannel = FileChannel.open(dictionary, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		// Drop the dictionary entry truncated by a crash, if any
+		dictionaryChannel.truncate(dictionarySize);
+		dictionaryChannel.position(dictionarySize);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		// Drop the record truncated by a crash, if any
+		channel.truncate(channel.size() - channel.size() % RECORD_SIZE);
+		channel.position(channel.size());
+	}
+
+	/**
+	 * Append the given sample to the log. The sample is written by the next {@link #commit()}
+	 * at the latest. The samples that are not numbers are ignored.
+	 * @param component The key identifying the component.
+	 * @param label The label of the knowledge field.
+	 * @param value The value of the knowledge field.
+	 * @param timestamp The time when the value has been obtained.
+	 * @param isOperational Whether the sensor that provided the value works.
+	 * @throws IOException If the buffered records can't be written.
+	 */
+	public void append(String component, String label, Object value, long timestamp,
+			boolean isOperational) throws IOException {
+		if(!(value instanceof Number)){
+			return;
+		}
+		if(!records.hasRemaining()){
+			flush();
+		}
+
+		records.putInt(getId(componentIds, COMPONENT_ENTRY, component));
+		records.putInt(getId(labelIds, LABEL_ENTRY, label));
+		records.putLong(timestamp);
+		records.putDouble(((Number) value).doubleValue());
+		records.putInt(isOperational ? OPERATIONAL_FLAG : 0);
+		records.putInt(0);
+	}
+
+	/**
+	 * Write all the appended records and force them to the disk if requested.
+	 * @throws IOException If the records can't be written.
+	 */
+	public void commit() throws IOException {
+		flush();
+		if(force){
+			channel.force(false);
+		}
+	}
+
+	/**
+	 * Commit the appended records and close the log.
+	 * @throws IOException If the records can't be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			commit();
+		} finally {
+			channel.close();
+			dictionaryChannel.close();
+		}
+	}
+
+	/**
+	 * Write the buffered dictionary entries and records.
+	 * @throws IOException If the entries can't be written.
+	 */
+	private void flush() throws IOException {
+		if(!dictionaryEntries.isEmpty()){
+			int size = 0;
+			for(byte[] entry : dictionaryEntries){
+				size += entry.length;
+			}
+			ByteBuffer entries = ByteBuffer.allocate(size);
+			for(byte[] entry : dictionaryEntries){
+				entries.put(entry);
+			}
+			// The buffers are flipped and cleared through the Buffer so that the calls link on Java 8
+			((Buffer) entries).flip();
+			while(entries.hasRemaining()){
+				dictionaryChannel.write(entries);
+			}
+			dictionaryChannel.force(false);
+			dictionaryEntries.clear();
+		}
+
+		((Buffer) records).flip();
+		while(records.hasRemaining()){
+			channel.write(records);
+		}
+		((Buffer) records).clear();
+	}
+
+	/**
+	 * Returns the ID of the given name. A new ID is assigned and a dictionary entry
+	 * is buffered if the name has no ID yet.
+	 * @param ids The IDs of the names.
+	 * @param kind The kind of the dictionary entry.
+	 * @param name The name.
+	 * @return The ID of the given name.
+	 */
+	private int getId(Map<String, Integer> ids, byte kind, String name){
+		Integer id = ids.get(name);
+		if(id == null){
+			id = ids.size();
+			ids.put(name, id);
+
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			ByteBuffer entry = ByteBuffer.allocate(1 + 4 + 4 + bytes.length);
+			entry.put(kind);
+			entry.putInt(id);
+			entry.putInt(bytes.length);
+			entry.put(bytes);
+			dictionaryEntries.add(entry.array());
+		}
+		return id;
+	}
+
+	/**
+	 * Rebuild the histories of the components from the given log.
+	 * @param file The log file. The dictionary is read from the file with the ".dict" suffix.
+	 * @param historyFactory Creates the empty histories the logged values are added to.
+	 * @return The histories of the knowledge fields of the logged components
+	 * indexed by the keys of the components.
+	 * @throws IOException If the log can't be read.
+	 */
+	public static Map<String, Map<String, KnowledgeHistory>> replay(Path file,
+			Supplier<? extends KnowledgeHistory> historyFactory) throws IOException {
+		if(file == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "file"));
+		}
+		if(historyFactory == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "historyFactory"));
+		}
+
+		Map<String, Integer> componentIds = new HashMap<>();
+		Map<String, Integer> labelIds = new HashMap<>();
+		readDictionary(getDictionaryFile(file), componentIds, labelIds);
+		String[] components = invert(componentIds);
+		String[] labels = invert(labelIds);
+
+		Map<String, Map<String, KnowledgeHistory>> histories = new HashMap<>();
+		LongObjectMap<KnowledgeHistory> cache = new LongObjectMap<>();
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			long size = channel.size() - channel.size() % RECORD_SIZE;
+			long chunk = (Integer.MAX_VALUE / RECORD_SIZE) * (long) RECORD_SIZE;
+			for(long offset = 0; offset < size; offset += chunk){
+				MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, offset, Math.min(chunk, size - offset));
+				while(buffer.hasRemaining()){
+					int componentId = buffer.getInt();
+					int labelId = buffer.getInt();
+					long timestamp = buffer.getLong();
+					double value = buffer.getDouble();
+					int flags = buffer.getInt();
+					buffer.getInt();
+
+					long key = KnowledgeRegistry.pairKey(componentId, labelId);
+					KnowledgeHistory history = cache.get(key);
+					if(history == null){
+						if(componentId >= components.length || labelId >= labels.length
+								|| components[componentId] == null || labels[labelId] == null){
+							throw new IOException(String.format(
+									"The record at %d refers to an unknown name.",
+									offset + buffer.position() - RECORD_SIZE));
+						}
+						Map<String, KnowledgeHistory> componentHistories = histories.get(components[componentId]);
+						if(componentHistories == null){
+							componentHistories = new HashMap<>();
+							histories.put(components[componentId], componentHistories);
+						}
+						history = historyFactory.get();
+						componentHistories.put(labels[labelId], history);
+						cache.put(key, history);
+					}
+					history.add(value, timestamp, (flags & OPERATIONAL_FLAG) != 0);
+				}
+			}
+		}
+		return histories;
+	}
+
+	/**
+	 * Returns the dictionary file of the given log.
+	 * @param file The log file.
+	 * @return The dictionary file of the given log.
+	 */
+	private static Path getDictionaryFile(Path file){
+		return file.resolveSibling(file.getFileName() + ".dict");
+	}
+
+	/**
+	 * Read the entries of the given dictionary. An entry truncated by a crash at the end
+	 * of the dictionary is ignored.
+	 * @param dictionary The dictionary file.
+	 * @param componentIds The IDs of the components to be filled.
+	 * @param labelIds The IDs of the labels to be filled.
+	 * @return The size in bytes of the complete entries at the beginning of the dictionary.
+	 * @throws IOException If the dictionary can't be read.
+	 */
+	private static long readDictionary(Path dictionary, Map<String, Integer> componentIds,
+			Map<String, Integer> labelIds) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(dictionary));
+		int complete = 0;
+		while(buffer.remaining() >= 1 + 4 + 4){
+			byte kind = buffer.get();
+			int id = buffer.getInt();
+			int length = buffer.getInt();
+			if(length < 0 || length > buffer.remaining()){
+				break;
+			}
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			String name = new String(bytes, StandardCharsets.UTF_8);
+			if(kind == COMPONENT_ENTRY){
+				componentIds.put(name, id);
+			} else if(kind == LABEL_ENTRY){
+				labelIds.put(name, id);
+			} else {
+				throw new IOException(String.format("Unknown dictionary entry kind %d.", kind));
+			}
+			complete = buffer.position();
+		}
+		return complete;
+	}
+
+	/**
+	 * Returns the names indexed by theirs IDs.
+	 * @param ids The IDs of the names.
+	 * @return The names indexed by theirs IDs.
+	 */
+	private static String[] invert(Map<String, Integer> ids){
+		int size = 0;
+		for(int id : ids.values()){
+			size = Math.max(size, id + 1);
+		}
+		String[] names = new String[size];
+		for(Map.Entry<String, Integer> id : ids.entrySet()){
+			names[id.getValue()] = id.getKey();
+		}
+		return names;
+	}
+}
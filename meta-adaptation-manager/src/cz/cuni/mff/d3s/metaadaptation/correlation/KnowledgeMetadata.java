@@ -0,0 +1,174 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import cz.cuni.mff.d3s.metaadaptation.correlation.CorrelationLevel.DistanceClass;
+import cz.cuni.mff.d3s.metaadaptation.correlation.metric.DoubleMetric;
+import cz.cuni.mff.d3s.metaadaptation.correlation.metric.Metric;
+
+/**
+ * Encapsulates the metadata for a single knowledge field. The metadata are
+ * a distance bound, metric and confidence level. The instances are immutable,
+ * so once resolved from the {@link KnowledgeMetadataRegistry} they can be used
+ * repeatedly and from any thread without further lookups.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public final class KnowledgeMetadata {
+
+	/**
+	 * The distance bound delimiting close and far distance.
+	 */
+	private final double bound;
+	/**
+	 * The metric to compute the distance of values of the knowledge field.
+	 */
+	private final Metric metric;
+	/**
+	 * The boundary that delimits when the correlation is accurate enough.
+	 * It is a number from the interval [0,1], that represent percentage.
+	 * The correlation itself reflects the percentage of "close" values when
+	 * the filtering values are "close".
+	 */
+	private final double confidenceLevel;
+
+	/**
+	 * Create a new instance of KnowledgeMetadata.
+	 * @param bound The distance bound delimiting close and far distance.
+	 * @param metric The metric to compute the distance of values of the knowledge field.
+	 * @param confidence The boundary that delimits when the correlation is accurate enough.
+	 * 		It is a number from the interval [0,1], that represent percentage.
+	 * 		The correlation itself reflects the percentage of "close" values when
+	 * 		the filtering values are "close".
+	 */
+	public KnowledgeMetadata(double bound, Metric metric, double confidence){
+		if(metric == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "metric"));
+		}
+
+		this.bound = bound;
+		this.metric = metric;
+		confidenceLevel = confidence;
+	}
+
+	/**
+	 * The distance bound delimiting close and far distance.
+	 * @return The distance bound delimiting close and far distance.
+	 */
+	public double getBound(){
+		return bound;
+	}
+
+	/**
+	 * The metric to compute the distance of values of the knowledge field.
+	 * @return The metric to compute the distance of values of the knowledge field.
+	 */
+	public Metric getMetric(){
+		return metric;
+	}
+
+	/**
+	 * The boundary that delimits when the correlation is accurate enough.
+	 * 		It is a number from the interval [0,1], that represent percentage.
+	 * 		The correlation itself reflects the percentage of "close" values when
+	 * 		the filtering values are "close".
+	 * @return The boundary that delimits when the correlation is accurate enough.
+	 */
+	public double getConfidenceLevel(){
+		return confidenceLevel;
+	}
+
+	/**
+	 * Computes the distance between the given values using the metric of the knowledge field.
+	 * @param value1 The value to measure the distance from.
+	 * @param value2 The value to measure the distance to.
+	 * @return The value of the measured distance.
+	 */
+	public double distance(Object value1, Object value2){
+		return metric.distance(value1, value2);
+	}
+
+	/**
+	 * Computes the distance between the values stored in the given histories using the metric
+	 * of the knowledge field. The numeric histories are read without boxing when the metric allows it.
+	 * @param history1 The history holding the value to measure the distance from.
+	 * @param index1 The position of the value in the first history.
+	 * @param history2 The history holding the value to measure the distance to.
+	 * @param index2 The position of the value in the second history.
+	 * @return The value of the measured distance.
+	 */
+	public double distance(KnowledgeHistory history1, int index1,
+			KnowledgeHistory history2, int index2){
+		if(metric instanceof DoubleMetric && history1.isNumeric() && history2.isNumeric()){
+			return ((DoubleMetric) metric).distance(
+					history1.getDoubleValue(index1), history2.getDoubleValue(index2));
+		}
+		return metric.distance(history1.getValue(index1), history2.getValue(index2));
+	}
+
+	/**
+	 * Computes the distances between the values at the corresponding positions of the given
+	 * histories using the metric of the knowledge field. The values of numeric histories are
+	 * measured in a single batch when the metric is a {@link DoubleMetric}.
+	 * @param history1 The history holding the values to measure the distances from.
+	 * @param indices1 The positions of the values in the first history.
+	 * @param history2 The history holding the values to measure the distances to.
+	 * @param indices2 The positions of the values in the second history.
+	 * @param count The count of the distances to compute.
+	 * @param distances The array the distances are stored to from the position 0.
+	 */
+	public void distance(KnowledgeHistory history1, int[] indices1,
+			KnowledgeHistory history2, int[] indices2, int count, double[] distances){
+		if(metric instanceof DoubleMetric && history1.isNumeric() && history2.isNumeric()){
+			double[] values1 = new double[count];
+			double[] values2 = new double[count];
+			history1.getDoubleValues(indices1, count, values1);
+			history2.getDoubleValues(indices2, count, values2);
+			((DoubleMetric) metric).distance(values1, 0, values2, 0, distances, 0, count);
+			return;
+		}
+		for(int i = 0; i < count; i++){
+			distances[i] = metric.distance(history1.getValue(indices1[i]), history2.getValue(indices2[i]));
+		}
+	}
+
+	/**
+	 * Classifies the given distance based on the distance bound of the knowledge field.
+	 * @param distance The measured distance.
+	 * @return The class of the given distance.
+	 */
+	public DistanceClass classify(double distance){
+		if(Double.isNaN(distance)) {
+			return DistanceClass.Undefined;
+		}
+		if(distance <= bound){
+			return DistanceClass.Close;
+		}
+		else{
+			return DistanceClass.Far;
+		}
+	}
+
+	/**
+	 * Classifies the distance between the given values based on the distance bound
+	 * using the metric of the knowledge field.
+	 * @param value1 The value to classify the distance from.
+	 * @param value2 The value to classify the distance to.
+	 * @return The class of the measured distance.
+	 */
+	public DistanceClass classifyDistance(Object value1, Object value2){
+		return classify(distance(value1, value2));
+	}
+
+	/**
+	 * Classifies the distance between the values stored in the given histories based on
+	 * the distance bound using the metric of the knowledge field.
+	 * @param history1 The history holding the value to classify the distance from.
+	 * @param index1 The position of the value in the first history.
+	 * @param history2 The history holding the value to classify the distance to.
+	 * @param index2 The position of the value in the second history.
+	 * @return The class of the measured distance.
+	 */
+	public DistanceClass classifyDistance(KnowledgeHistory history1, int index1,
+			KnowledgeHistory history2, int index2){
+		return classify(distance(history1, index1, history2, index2));
+	}
+}
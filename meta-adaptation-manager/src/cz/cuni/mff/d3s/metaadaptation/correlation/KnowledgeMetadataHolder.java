@@ -1,8 +1,5 @@
 package cz.cuni.mff.d3s.metaadaptation.correlation;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import cz.cuni.mff.d3s.metaadaptation.correlation.CorrelationLevel.DistanceClass;
 import cz.cuni.mff.d3s.metaadaptation.correlation.metric.Metric;
 
@@ -10,83 +7,30 @@ import cz.cuni.mff.d3s.metaadaptation.correlation.metric.Metric;
  * A class that maps additional metadata to individual knowledge fields.
  * The metadata are hard coded to predefined knowledge fields identified by
  * labels. The metadata are a distance bound and metric.
- * 
+ * <p>
+ * The metadata are held by the default {@link KnowledgeMetadataRegistry} shared
+ * by all the {@link CorrelationManager}s that are not given a registry of theirs own.
+ * </p>
+ *
  * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
  */
 public class KnowledgeMetadataHolder {
 
 	/**
-	 * Encapsulates the metadata for a single knowledge field.
-	 * 
-	 * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+	 * The default registry of the metadata.
 	 */
-	private static class KnowledgeMetadata{
-		/**
-		 * The distance bound delimiting close and far distance.
-		 */
-		private double bound;
-		/**
-		 * The metric to compute the distance of values of the knowledge field.
-		 */
-		private Metric metric;
-		/**
-		 * The boundary that delimits when the correlation is accurate enough.
-		 * It is a number from the interval [0,1], that represent percentage.
-		 * The correlation itself reflects the percentage of "close" values when
-		 * the filtering values are "close".
-		 */
-		private double confidenceLevel;
-		
-		/**
-		 * Create a new instance of KnowledgeMetadata.
-		 * @param bound The distance bound delimiting close and far distance.
-		 * @param metric The metric to compute the distance of values of the knowledge field.
-		 * @Param confidence The boundary that delimits when the correlation is accurate enough.
-		 * 		It is a number from the interval [0,1], that represent percentage.
-		 * 		The correlation itself reflects the percentage of "close" values when
-		 * 		the filtering values are "close".
-		 */
-		public KnowledgeMetadata(double bound, Metric metric, double confidence){
-			this.bound = bound;
-			this.metric = metric;
-			confidenceLevel = confidence;
-		}
-		
-		/**
-		 * The distance bound delimiting close and far distance.
-		 * @return The distance bound delimiting close and far distance.
-		 */
-		public double getBound(){
-			return bound;
-		}
-		
-		/**
-		 * The metric to compute the distance of values of the knowledge field.
-		 * @return The metric to compute the distance of values of the knowledge field.
-		 */
-		public Metric getMetric(){
-			return metric;
-		}
-		
-		/**
-		 * The boundary that delimits when the correlation is accurate enough.
-		 * 		It is a number from the interval [0,1], that represent percentage.
-		 * 		The correlation itself reflects the percentage of "close" values when
-		 * 		the filtering values are "close".
-		 * @return The boundary that delimits when the correlation is accurate enough.
-		 */
-		public double getConfidenceLevel(){
-			return confidenceLevel;
-		}
-	}
-	
+	private static final KnowledgeMetadataRegistry registry = new KnowledgeMetadataRegistry();
+
 	/**
-	 * Mapping of the metadata to knowledge fields identified by theirs labels.
+	 * Returns the default registry of the metadata.
+	 * @return The default registry of the metadata.
 	 */
-	private static final Map<String, KnowledgeMetadata> knowledgeMetadata = new HashMap<String, KnowledgeMetadata>();
+	public static KnowledgeMetadataRegistry getRegistry(){
+		return registry;
+	}
 
 	/**
-	 * Set the given metadata for the knowledge field identified by the given label. 
+	 * Set the given metadata for the knowledge field identified by the given label.
 	 * @param label Identifies the metadata field.
 	 * @param bound The distance bound delimiting close and far distance.
 	 * @param metric The metric to compute the distance of values of the knowledge field.
@@ -96,9 +40,9 @@ public class KnowledgeMetadataHolder {
 	 * 		the filtering values are "close".
 	 */
 	public static void setBoundAndMetric(String label, double bound, Metric metric, double confidence){
-		knowledgeMetadata.put(label, new KnowledgeMetadata(bound, metric, confidence));
+		registry.setBoundAndMetric(label, bound, metric, confidence);
 	}
-	
+
 	/**
 	 * The distance bound delimiting close and far distance for the knowledge field
 	 * identified by the given label.
@@ -107,14 +51,9 @@ public class KnowledgeMetadataHolder {
 	 * field identified by the given label.
 	 */
 	public static double getBound(String label){
-		if(knowledgeMetadata.containsKey(label)){
-			return knowledgeMetadata.get(label).getBound();
-		}
-		else {
-			return -1;
-		}
+		return registry.getBound(label);
 	}
-	
+
 	/**
 	 * The metric to compute the distance of values of the knowledge field
 	 * identified by the given label.
@@ -123,12 +62,7 @@ public class KnowledgeMetadataHolder {
 	 * field identified by the given label.
 	 */
 	public static Metric getMetric(String label){
-		if(knowledgeMetadata.containsKey(label)){
-			return knowledgeMetadata.get(label).getMetric();
-		}
-		else {
-			return null;
-		}
+		return registry.getMetric(label);
 	}
 
 	/**
@@ -140,14 +74,9 @@ public class KnowledgeMetadataHolder {
 	 * @return The boundary that delimits when the correlation is accurate enough.
 	 */
 	public static double getConfidenceLevel(String label){
-		if(knowledgeMetadata.containsKey(label)){
-			return knowledgeMetadata.get(label).getConfidenceLevel();
-		}
-		else {
-			return Double.NaN;
-		}
+		return registry.getConfidenceLevel(label);
 	}
-	
+
 	/**
 	 * Indicates whether the KnowledgeMetadataHolder contains the specified label.
 	 * @param label Identifies the knowledge field.
@@ -155,9 +84,9 @@ public class KnowledgeMetadataHolder {
 	 * knowledge field identified by the given label.
 	 */
 	public static boolean containsLabel(String label){
-		return knowledgeMetadata.containsKey(label);
+		return registry.containsLabel(label);
 	}
-	
+
 	/**
 	 * Classifies the distance between the given values based on the distance bound
 	 * using the metric specific to the knowledge field identified by the given label.
@@ -167,23 +96,39 @@ public class KnowledgeMetadataHolder {
 	 * @return The class of the measured distance for the specified knowledge field.
 	 */
 	public static DistanceClass classifyDistance(String label, Object value1, Object value2){
-		if(containsLabel(label)){
-			Metric metric = getMetric(label);
-			double bound = getBound(label);
-			double distance = metric.distance(value1, value2);
-			
-			if(Double.isNaN(distance)) {
-				return DistanceClass.Undefined;
-			}
-			if(distance <= bound){
-				return DistanceClass.Close;
-			}
-			else{
-				return DistanceClass.Far;
-			}	
-		}
-		
-		return DistanceClass.Undefined;
+		return registry.classifyDistance(label, value1, value2);
+	}
+
+	/**
+	 * Classifies the distance between the values stored in the given histories based on
+	 * the distance bound using the metric specific to the knowledge field identified by the given label.
+	 * The numeric histories are read without boxing when the metric allows it.
+	 * @param label Identifies the knowledge field.
+	 * @param history1 The history holding the value to classify the distance from.
+	 * @param index1 The position of the value in the first history.
+	 * @param history2 The history holding the value to classify the distance to.
+	 * @param index2 The position of the value in the second history.
+	 * @return The class of the measured distance for the specified knowledge field.
+	 */
+	public static DistanceClass classifyDistance(String label, KnowledgeHistory history1, int index1,
+			KnowledgeHistory history2, int index2){
+		return registry.classifyDistance(label, history1, index1, history2, index2);
+	}
+
+	/**
+	 * Computes the distance between the values stored in the given histories
+	 * using the metric specific to the knowledge field identified by the given label.
+	 * The numeric histories are read without boxing when the metric allows it.
+	 * @param label Identifies the knowledge field.
+	 * @param history1 The history holding the value to measure the distance from.
+	 * @param index1 The position of the value in the first history.
+	 * @param history2 The history holding the value to measure the distance to.
+	 * @param index2 The position of the value in the second history.
+	 * @return The value of the measured distance for the specified knowledge field.
+	 */
+	public static double distance(String label, KnowledgeHistory history1, int index1,
+			KnowledgeHistory history2, int index2){
+		return registry.distance(label, history1, index1, history2, index2);
 	}
 
 	/**
@@ -195,11 +140,6 @@ public class KnowledgeMetadataHolder {
 	 * @return The value of the measured distance for the specified knowledge field.
 	 */
 	public static double distance(String label, Object value1, Object value2){
-		if(containsLabel(label)){
-			Metric metric = getMetric(label);	
-			return metric.distance(value1, value2);
-		}
-		
-		return Double.NaN;
+		return registry.distance(label, value1, value2);
 	}
 }
@@ -0,0 +1,179 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cz.cuni.mff.d3s.metaadaptation.correlation.CorrelationLevel.DistanceClass;
+import cz.cuni.mff.d3s.metaadaptation.correlation.metric.Metric;
+
+/**
+ * Maps the {@link KnowledgeMetadata} to individual knowledge fields identified by labels.
+ * The registry can be shared and modified across threads. Each call resolves the label
+ * by a single lookup. The callers that use the metadata repeatedly should resolve the
+ * {@link KnowledgeMetadata} once by {@link #getMetadata(String)}.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class KnowledgeMetadataRegistry {
+
+	/**
+	 * Mapping of the metadata to knowledge fields identified by theirs labels.
+	 */
+	private final Map<String, KnowledgeMetadata> knowledgeMetadata;
+	/**
+	 * The version of the metadata. Incremented whenever any metadata are set.
+	 */
+	private final AtomicLong version;
+
+	/**
+	 * Create a new empty instance of {@link KnowledgeMetadataRegistry}.
+	 */
+	public KnowledgeMetadataRegistry(){
+		knowledgeMetadata = new ConcurrentHashMap<>();
+		version = new AtomicLong();
+	}
+
+	/**
+	 * Set the given metadata for the knowledge field identified by the given label.
+	 * @param label Identifies the metadata field.
+	 * @param bound The distance bound delimiting close and far distance.
+	 * @param metric The metric to compute the distance of values of the knowledge field.
+	 * @param confidence The boundary that delimits when the correlation is accurate enough.
+	 * 		It is a number from the interval [0,1], that represent percentage.
+	 * 		The correlation itself reflects the percentage of "close" values when
+	 * 		the filtering values are "close".
+	 */
+	public void setBoundAndMetric(String label, double bound, Metric metric, double confidence){
+		if(label == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "label"));
+		}
+		knowledgeMetadata.put(label, new KnowledgeMetadata(bound, metric, confidence));
+		version.incrementAndGet();
+	}
+
+	/**
+	 * Returns the version of the metadata. The version increases whenever
+	 * any metadata are set, so the results computed from the metadata of an
+	 * older version may be outdated.
+	 * @return The version of the metadata.
+	 */
+	public long getVersion(){
+		return version.get();
+	}
+
+	/**
+	 * Returns the metadata of the knowledge field identified by the given label.
+	 * @param label Identifies the knowledge field.
+	 * @return The metadata of the knowledge field. Null if there are no metadata
+	 * for the knowledge field.
+	 */
+	public KnowledgeMetadata getMetadata(String label){
+		return label == null ? null : knowledgeMetadata.get(label);
+	}
+
+	/**
+	 * The distance bound delimiting close and far distance for the knowledge field
+	 * identified by the given label.
+	 * @param label Identifies the knowledge field.
+	 * @return The distance bound delimiting close and far distance for the knowledge
+	 * field identified by the given label. -1 if there are no metadata for the knowledge field.
+	 */
+	public double getBound(String label){
+		KnowledgeMetadata metadata = getMetadata(label);
+		return metadata == null ? -1 : metadata.getBound();
+	}
+
+	/**
+	 * The metric to compute the distance of values of the knowledge field
+	 * identified by the given label.
+	 * @param label Identifies the knowledge field.
+	 * @return The metric to compute the distance of values of the knowledge
+	 * field identified by the given label. Null if there are no metadata for the knowledge field.
+	 */
+	public Metric getMetric(String label){
+		KnowledgeMetadata metadata = getMetadata(label);
+		return metadata == null ? null : metadata.getMetric();
+	}
+
+	/**
+	 * The confidence level is a boundary that delimits when the correlation is accurate enough.
+	 * @param label Identifies the knowledge field.
+	 * @return The boundary that delimits when the correlation is accurate enough.
+	 * Double.NaN if there are no metadata for the knowledge field.
+	 */
+	public double getConfidenceLevel(String label){
+		KnowledgeMetadata metadata = getMetadata(label);
+		return metadata == null ? Double.NaN : metadata.getConfidenceLevel();
+	}
+
+	/**
+	 * Indicates whether the registry contains the specified label.
+	 * @param label Identifies the knowledge field.
+	 * @return True if the registry contains metadata for the
+	 * knowledge field identified by the given label.
+	 */
+	public boolean containsLabel(String label){
+		return getMetadata(label) != null;
+	}
+
+	/**
+	 * Classifies the distance between the given values based on the distance bound
+	 * using the metric specific to the knowledge field identified by the given label.
+	 * @param label Identifies the knowledge field.
+	 * @param value1 The value to classify the distance from.
+	 * @param value2 The value to classify the distance to.
+	 * @return The class of the measured distance for the specified knowledge field.
+	 */
+	public DistanceClass classifyDistance(String label, Object value1, Object value2){
+		KnowledgeMetadata metadata = getMetadata(label);
+		return metadata == null ? DistanceClass.Undefined : metadata.classifyDistance(value1, value2);
+	}
+
+	/**
+	 * Classifies the distance between the values stored in the given histories based on
+	 * the distance bound using the metric specific to the knowledge field identified by the given label.
+	 * @param label Identifies the knowledge field.
+	 * @param history1 The history holding the value to classify the distance from.
+	 * @param index1 The position of the value in the first history.
+	 * @param history2 The history holding the value to classify the distance to.
+	 * @param index2 The position of the value in the second history.
+	 * @return The class of the measured distance for the specified knowledge field.
+	 */
+	public DistanceClass classifyDistance(String label, KnowledgeHistory history1, int index1,
+			KnowledgeHistory history2, int index2){
+		KnowledgeMetadata metadata = getMetadata(label);
+		return metadata == null
+				? DistanceClass.Undefined
+				: metadata.classifyDistance(history1, index1, history2, index2);
+	}
+
+	/**
+	 * Computes the distance between the given values
+	 * using the metric specific to the knowledge field identified by the given label.
+	 * @param label Identifies the knowledge field.
+	 * @param value1 The value to measure the distance from.
+	 * @param value2 The value to measure the distance to.
+	 * @return The value of the measured distance for the specified knowledge field.
+	 */
+	public double distance(String label, Object value1, Object value2){
+		KnowledgeMetadata metadata = getMetadata(label);
+		return metadata == null ? Double.NaN : metadata.distance(value1, value2);
+	}
+
+	/**
+	 * Computes the distance between the values stored in the given histories
+	 * using the metric specific to the knowledge field identified by the given label.
+	 * @param label Identifies the knowledge field.
+	 * @param history1 The history holding the value to measure the distance from.
+	 * @param index1 The position of the value in the first history.
+	 * @param history2 The history holding the value to measure the distance to.
+	 * @param index2 The position of the value in the second history.
+	 * @return The value of the measured distance for the specified knowledge field.
+	 */
+	public double distance(String label, KnowledgeHistory history1, int index1,
+			KnowledgeHistory history2, int index2){
+		KnowledgeMetadata metadata = getMetadata(label);
+		return metadata == null ? Double.NaN : metadata.distance(history1, index1, history2, index2);
+	}
+}
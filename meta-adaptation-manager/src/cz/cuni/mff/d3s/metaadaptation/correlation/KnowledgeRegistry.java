@@ -0,0 +1,168 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns the knowledge labels and the components to dense integer IDs.
+ * The IDs are assigned in the order of the first registration starting from 0
+ * and never change. A pair of IDs is packed into a single long key by the
+ * {@link #pairKey(int, int)}, which allows the correlation computation to key
+ * its structures by primitive values instead of {@link LabelPair}s and
+ * {@link ComponentPair}s.
+ * <p>
+ * The registry is not thread safe. It can be read concurrently as long as nothing
+ * is being registered.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class KnowledgeRegistry {
+
+	/**
+	 * The IDs of the registered labels.
+	 */
+	private final Map<String, Integer> labelIds;
+	/**
+	 * The registered labels indexed by theirs IDs.
+	 */
+	private final List<String> labels;
+	/**
+	 * The IDs of the registered components.
+	 */
+	private final Map<Component, Integer> componentIds;
+	/**
+	 * The registered components indexed by theirs IDs.
+	 */
+	private final List<Component> components;
+	/**
+	 * The interned label pairs keyed by the packed label IDs.
+	 */
+	private final LongObjectMap<LabelPair> labelPairs;
+
+	/**
+	 * Create a new empty instance of {@link KnowledgeRegistry}.
+	 */
+	public KnowledgeRegistry(){
+		labelIds = new HashMap<>();
+		labels = new ArrayList<>();
+		componentIds = new HashMap<>();
+		components = new ArrayList<>();
+		labelPairs = new LongObjectMap<>();
+	}
+
+	/**
+	 * Returns the ID of the given label. The label is registered if it isn't yet.
+	 * @param label The knowledge label.
+	 * @return The ID of the given label.
+	 */
+	public int getLabelId(String label){
+		if(label == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "label"));
+		}
+		Integer id = labelIds.get(label);
+		if(id == null){
+			id = labels.size();
+			labelIds.put(label, id);
+			labels.add(label);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the label registered with the given ID.
+	 * @param id The ID of the label.
+	 * @return The label registered with the given ID.
+	 */
+	public String getLabel(int id){
+		return labels.get(id);
+	}
+
+	/**
+	 * Returns the count of the registered labels.
+	 * @return The count of the registered labels.
+	 */
+	public int getLabelCount(){
+		return labels.size();
+	}
+
+	/**
+	 * Returns the ID of the given component. The component is registered if it isn't yet.
+	 * @param component The component.
+	 * @return The ID of the given component.
+	 */
+	public int getComponentId(Component component){
+		if(component == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "component"));
+		}
+		Integer id = componentIds.get(component);
+		if(id == null){
+			id = components.size();
+			componentIds.put(component, id);
+			components.add(component);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the component registered with the given ID.
+	 * @param id The ID of the component.
+	 * @return The component registered with the given ID.
+	 */
+	public Component getComponent(int id){
+		return components.get(id);
+	}
+
+	/**
+	 * Returns the count of the registered components.
+	 * @return The count of the registered components.
+	 */
+	public int getComponentCount(){
+		return components.size();
+	}
+
+	/**
+	 * Returns the {@link LabelPair} of the labels packed in the given key.
+	 * The same instance is returned for the same key.
+	 * @param key The key of the label pair created by the {@link #pairKey(int, int)}.
+	 * @return The {@link LabelPair} of the labels packed in the given key.
+	 */
+	public LabelPair getLabelPair(long key){
+		LabelPair pair = labelPairs.get(key);
+		if(pair == null){
+			pair = new LabelPair(getLabel(firstId(key)), getLabel(secondId(key)));
+			labelPairs.put(key, pair);
+		}
+		return pair;
+	}
+
+	/**
+	 * Packs the given pair of IDs into a single key. The ordering of the IDs matters.
+	 * @param firstId The first ID.
+	 * @param secondId The second ID.
+	 * @return The key of the pair of IDs.
+	 */
+	public static long pairKey(int firstId, int secondId){
+		return ((long) firstId << 32) | (secondId & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Returns the first ID packed in the given key.
+	 * @param key The key created by the {@link #pairKey(int, int)}.
+	 * @return The first ID packed in the given key.
+	 */
+	public static int firstId(long key){
+		return (int) (key >>> 32);
+	}
+
+	/**
+	 * Returns the second ID packed in the given key.
+	 * @param key The key created by the {@link #pairKey(int, int)}.
+	 * @return The second ID packed in the given key.
+	 */
+	public static int secondId(long key){
+		return (int) key;
+	}
+}
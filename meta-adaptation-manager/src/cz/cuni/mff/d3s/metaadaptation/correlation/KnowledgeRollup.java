@@ -0,0 +1,126 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+/**
+ * A coarse history of a numeric knowledge field. The values added to the rollup are
+ * aggregated per time slot of the rollup and each complete slot is stored as a single value,
+ * the mean of the operational values within the slot, with the timestamp of the beginning
+ * of the slot. The slot is operational if any of its values is operational. The mean of all
+ * the values is stored for a slot with no operational value.
+ * <p>
+ * A slot is complete once a value of a later slot is added. The values older than the
+ * slot being aggregated are ignored.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class KnowledgeRollup {
+
+	/**
+	 * The duration of the time slots of the rollup in milliseconds.
+	 */
+	private final long slotDuration;
+	/**
+	 * The means of the complete time slots.
+	 */
+	private final NumericKnowledgeHistory history;
+	/**
+	 * The time slot being aggregated. {@link Long#MIN_VALUE} if no value was added yet.
+	 */
+	private long slot;
+	/**
+	 * The sum of the operational values of the slot being aggregated.
+	 */
+	private double operationalSum;
+	/**
+	 * The count of the operational values of the slot being aggregated.
+	 */
+	private int operationalCnt;
+	/**
+	 * The sum of all the values of the slot being aggregated.
+	 */
+	private double sum;
+	/**
+	 * The count of all the values of the slot being aggregated.
+	 */
+	private int count;
+
+	/**
+	 * Create a new empty instance of {@link KnowledgeRollup}.
+	 * @param slotDuration The duration of the time slots of the rollup in milliseconds.
+	 * @param capacity The maximal count of slots held in the rollup.
+	 * @param timeHorizon The time span in milliseconds for which the slots are held.
+	 */
+	public KnowledgeRollup(long slotDuration, int capacity, long timeHorizon){
+		if(slotDuration <= 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "slotDuration"));
+		}
+
+		this.slotDuration = slotDuration;
+		history = new NumericKnowledgeHistory(capacity, timeHorizon,
+				HistoryEvictionPolicy.OldestFirst, slotDuration);
+		slot = Long.MIN_VALUE;
+	}
+
+	/**
+	 * Returns the duration of the time slots of the rollup.
+	 * @return The duration of the time slots of the rollup in milliseconds.
+	 */
+	public long getSlotDuration(){
+		return slotDuration;
+	}
+
+	/**
+	 * Returns the history of the means of the complete time slots.
+	 * @return The history of the means of the complete time slots.
+	 */
+	public KnowledgeHistory getHistory(){
+		return history;
+	}
+
+	/**
+	 * Aggregate the given value into its time slot. The value is silently dropped if it
+	 * belongs to a time slot earlier than the one being aggregated, e.g. if the values
+	 * arrive out of order.
+	 * @param value The value to be aggregated.
+	 * @param timestamp The time when the value has been obtained.
+	 * @param isOperational Whether the sensor that provided the value works.
+	 */
+	public void add(double value, long timestamp, boolean isOperational){
+		if(Double.isNaN(value)){
+			return;
+		}
+		long valueSlot = Math.floorDiv(timestamp, slotDuration);
+		if(valueSlot < slot){
+			return;
+		}
+		if(valueSlot > slot){
+			complete();
+			slot = valueSlot;
+		}
+
+		sum += value;
+		count++;
+		if(isOperational){
+			operationalSum += value;
+			operationalCnt++;
+		}
+	}
+
+	/**
+	 * Store the mean of the slot being aggregated into the history and start a new slot.
+	 */
+	private void complete(){
+		if(count > 0){
+			if(operationalCnt > 0){
+				history.add(operationalSum / operationalCnt, slot * slotDuration, true);
+			} else {
+				history.add(sum / count, slot * slotDuration, false);
+			}
+		}
+		operationalSum = 0;
+		operationalCnt = 0;
+		sum = 0;
+		count = 0;
+	}
+}
@@ -0,0 +1,152 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Index of the current numeric values of a single knowledge field across the components.
+ * The values are kept in a sorted array, so the components whose value lies within
+ * a given distance from a given value are found by a binary search instead of testing
+ * all the components. The distance is the absolute difference of the values, as
+ * measured by the {@link cz.cuni.mff.d3s.metaadaptation.correlation.metric.DifferenceMetric}.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class KnowledgeValueIndex {
+
+	/**
+	 * The label of the indexed knowledge field.
+	 */
+	private final String label;
+	/**
+	 * The values in ascending order.
+	 */
+	private final double[] values;
+	/**
+	 * The components holding the corresponding values.
+	 */
+	private final Component[] components;
+
+	/**
+	 * Build the index of the given values. The values that are NaN are omitted.
+	 * @param label The label of the indexed knowledge field.
+	 * @param components The components holding the values.
+	 * @param values The values of the components.
+	 * @param count The count of the valid entries in the components and values arrays.
+	 */
+	public KnowledgeValueIndex(String label, Component[] components, double[] values, int count){
+		if(label == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "label"));
+		}
+		if(components == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "components"));
+		}
+		if(values == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "values"));
+		}
+		this.label = label;
+
+		Integer[] order = new Integer[count];
+		int size = 0;
+		for(int i = 0; i < count; i++){
+			if(!Double.isNaN(values[i])){
+				order[size++] = i;
+			}
+		}
+		Arrays.sort(order, 0, size, (a, b) -> Double.compare(values[a], values[b]));
+
+		this.values = new double[size];
+		this.components = new Component[size];
+		for(int i = 0; i < size; i++){
+			this.values[i] = values[order[i]];
+			this.components[i] = components[order[i]];
+		}
+	}
+
+	/**
+	 * Returns the label of the indexed knowledge field.
+	 * @return The label of the indexed knowledge field.
+	 */
+	public String getLabel(){
+		return label;
+	}
+
+	/**
+	 * Returns the count of the indexed values.
+	 * @return The count of the indexed values.
+	 */
+	public int size(){
+		return values.length;
+	}
+
+	/**
+	 * Returns the value at the given position. The values are in ascending order.
+	 * @param index The position of the value.
+	 * @return The value at the given position.
+	 */
+	public double getValue(int index){
+		return values[index];
+	}
+
+	/**
+	 * Returns the component holding the value at the given position.
+	 * @param index The position of the value.
+	 * @return The component holding the value at the given position.
+	 */
+	public Component getComponent(int index){
+		return components[index];
+	}
+
+	/**
+	 * Returns the components whose value differs from the given value by less than the given boundary.
+	 * @param value The value to measure the distance from.
+	 * @param boundary The boundary of the distance.
+	 * @return The components whose value lies within the boundary in ascending order of the values.
+	 */
+	public List<Component> getWithin(double value, double boundary){
+		if(!(boundary > 0) || Double.isNaN(value)){
+			return Collections.emptyList();
+		}
+
+		// The range search is verified by the exact distance at both ends
+		// since the rounding of value +- boundary may differ from the rounding of the distance
+		int from = lowerBound(value - boundary);
+		while(from > 0 && Math.abs(values[from - 1] - value) < boundary){
+			from--;
+		}
+
+		List<Component> result = new ArrayList<>();
+		int i = from;
+		for(; i < values.length && values[i] <= value + boundary; i++){
+			if(Math.abs(values[i] - value) < boundary){
+				result.add(components[i]);
+			}
+		}
+		for(; i < values.length && Math.abs(values[i] - value) < boundary; i++){
+			result.add(components[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the position of the first value that is not smaller than the given one.
+	 * @param value The value to look for.
+	 * @return The position of the first value that is not smaller than the given one.
+	 * {@link #size()} if there is no such value.
+	 */
+	private int lowerBound(double value){
+		int low = 0;
+		int high = values.length;
+		while(low < high){
+			int middle = (low + high) >>> 1;
+			if(values[middle] < value){
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
@@ -73,6 +73,6 @@ public class LabelPair implements Serializable {
 	
 	@Override
 	public int hashCode() {
-		return String.format("%s;%s", firstLabel, secondLabel).hashCode();
+		return 31 * firstLabel.hashCode() + secondLabel.hashCode();
 	}
 }
@@ -0,0 +1,202 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Holds the distances collected for a single {@link LabelPair} between the planning
+ * cycles. The distances are collected for each pair of components separately,
+ * together with the last time slot that has been processed for that pair. This allows
+ * the planning to fold in only the newly observed time slots. All the distances are
+ * kept ordered in the {@link DistanceOrderStatistics} so that the distance boundary
+ * is available without sorting them.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class LabelPairDistances {
+
+	/**
+	 * A distance together with its order of insertion into the {@link DistanceOrderStatistics}.
+	 */
+	private static class Entry {
+		private final DistancePair distance;
+		private final long sequence;
+
+		private Entry(DistancePair distance, long sequence){
+			this.distance = distance;
+			this.sequence = sequence;
+		}
+	}
+
+	/**
+	 * The distances collected for a single pair of components.
+	 */
+	private static class ComponentPairDistances {
+		/**
+		 * The last time slot processed for the component pair.
+		 */
+		private long lastSlot = Long.MIN_VALUE;
+		/**
+		 * The distances collected for the component pair ordered by theirs time slots.
+		 */
+		private final ArrayDeque<Entry> distances = new ArrayDeque<>();
+	}
+
+	/**
+	 * The distances collected for the individual component pairs.
+	 */
+	private final LongObjectMap<ComponentPairDistances> componentPairs;
+
+	/**
+	 * All the distances held ordered by the distance.
+	 */
+	private DistanceOrderStatistics statistics;
+
+	/**
+	 * The count of the distances held.
+	 */
+	private int size;
+
+	/**
+	 * Create a new empty instance of {@link LabelPairDistances}.
+	 * @param confidenceLevel The confidence level the distance boundary has to satisfy.
+	 */
+	public LabelPairDistances(double confidenceLevel){
+		componentPairs = new LongObjectMap<>();
+		statistics = new DistanceOrderStatistics(confidenceLevel);
+		size = 0;
+	}
+
+	/**
+	 * Set the confidence level the distance boundary has to satisfy. The ordered
+	 * distances are rebuilt if the confidence level differs from the current one.
+	 * @param confidenceLevel The confidence level the distance boundary has to satisfy.
+	 */
+	public void setConfidenceLevel(double confidenceLevel){
+		if(Double.compare(confidenceLevel, statistics.getConfidenceLevel()) == 0){
+			return;
+		}
+		statistics = new DistanceOrderStatistics(confidenceLevel);
+		for(ComponentPairDistances pair : componentPairs.values()){
+			List<Entry> entries = new ArrayList<>(pair.distances);
+			pair.distances.clear();
+			for(Entry entry : entries){
+				pair.distances.add(new Entry(entry.distance, statistics.insert(entry.distance)));
+			}
+		}
+	}
+
+	/**
+	 * Returns the greatest distance that satisfies the confidence level.
+	 * @return The greatest distance that satisfies the confidence level.
+	 * Double.NaN if the confidence level can't be satisfied.
+	 */
+	public double getDistanceBoundary(){
+		return statistics.getBoundary();
+	}
+
+	/**
+	 * Returns the last time slot processed for the given component pair.
+	 * @param components The key of the pair of components created by the
+	 * {@link KnowledgeRegistry#pairKey(int, int)}.
+	 * @return The last time slot processed for the given component pair.
+	 * {@link Long#MIN_VALUE} if no time slot has been processed yet.
+	 */
+	public long getLastSlot(long components){
+		ComponentPairDistances pair = componentPairs.get(components);
+		return pair == null ? Long.MIN_VALUE : pair.lastSlot;
+	}
+
+	/**
+	 * Append the distances of newly processed time slots of the given component pair.
+	 * @param components The key of the pair of components created by the
+	 * {@link KnowledgeRegistry#pairKey(int, int)}.
+	 * @param distances The distances from the newly processed time slots.
+	 * @param lastSlot The last time slot processed for the given component pair.
+	 */
+	public void add(long components, List<DistancePair> distances, long lastSlot){
+		ComponentPairDistances pair = componentPairs.get(components);
+		if(pair == null){
+			pair = new ComponentPairDistances();
+			componentPairs.put(components, pair);
+		}
+		for(DistancePair distance : distances){
+			pair.distances.add(new Entry(distance, statistics.insert(distance)));
+		}
+		pair.lastSlot = Math.max(pair.lastSlot, lastSlot);
+		size += distances.size();
+	}
+
+	/**
+	 * Drop the distances of the given component pair that belong to time slots earlier
+	 * than the given one. Used to forget the distances computed from values that have
+	 * been evicted from the history.
+	 * @param components The key of the pair of components created by the
+	 * {@link KnowledgeRegistry#pairKey(int, int)}.
+	 * @param oldestSlot The earliest time slot to be kept.
+	 * @param timeSlotDuration The time slot duration in milliseconds.
+	 */
+	public void prune(long components, long oldestSlot, long timeSlotDuration){
+		ComponentPairDistances pair = componentPairs.get(components);
+		if(pair == null){
+			return;
+		}
+		Iterator<Entry> it = pair.distances.iterator();
+		while(it.hasNext()){
+			Entry entry = it.next();
+			if(entry.distance.timestamp / timeSlotDuration >= oldestSlot){
+				break;
+			}
+			statistics.remove(entry.distance.distance, entry.sequence);
+			it.remove();
+			size--;
+		}
+	}
+
+	/**
+	 * Drop the distances of all the component pairs other than the given ones. Used to
+	 * forget the distances of the component pairs whose components left the system
+	 * or no longer hold the respective knowledge fields.
+	 * @param components The keys of the pairs of components created by the
+	 * {@link KnowledgeRegistry#pairKey(int, int)} to be kept.
+	 */
+	public void retain(long[] components){
+		long[] kept = Arrays.copyOf(components, components.length);
+		Arrays.sort(kept);
+		for(long key : componentPairs.keys()){
+			if(Arrays.binarySearch(kept, key) >= 0){
+				continue;
+			}
+			ComponentPairDistances pair = componentPairs.remove(key);
+			for(Entry entry : pair.distances){
+				statistics.remove(entry.distance.distance, entry.sequence);
+			}
+			size -= pair.distances.size();
+		}
+	}
+
+	/**
+	 * Returns the count of the distances held.
+	 * @return The count of the distances held.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Returns a new list of all the distances held.
+	 * @return A new list of all the distances held.
+	 */
+	public List<DistancePair> getDistances(){
+		List<DistancePair> distances = new ArrayList<>(size);
+		for(ComponentPairDistances pair : componentPairs.values()){
+			for(Entry entry : pair.distances){
+				distances.add(entry.distance);
+			}
+		}
+		return distances;
+	}
+}
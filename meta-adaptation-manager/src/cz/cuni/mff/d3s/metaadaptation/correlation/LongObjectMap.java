@@ -0,0 +1,215 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A hash map with primitive long keys. The entries are stored in open addressing
+ * tables with linear probing, so neither the keys are boxed nor any entry objects
+ * are allocated.
+ * <p>
+ * The map is not thread safe. It can be read concurrently as long as it isn't modified.
+ * </p>
+ *
+ * @param <V> The type of the values.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class LongObjectMap<V> {
+
+	/**
+	 * The initial length of the tables. Has to be a power of two.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * The table of the keys.
+	 */
+	private long[] keys;
+	/**
+	 * The table of the values. Null marks an empty slot.
+	 */
+	private Object[] values;
+	/**
+	 * The count of the entries in the map.
+	 */
+	private int size;
+
+	/**
+	 * Create a new empty instance of {@link LongObjectMap}.
+	 */
+	public LongObjectMap(){
+		keys = new long[INITIAL_CAPACITY];
+		values = new Object[INITIAL_CAPACITY];
+		size = 0;
+	}
+
+	/**
+	 * Returns the count of the entries in the map.
+	 * @return The count of the entries in the map.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Returns the value associated with the given key.
+	 * @param key The key.
+	 * @return The value associated with the given key. Null if there is no such value.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key){
+		int mask = keys.length - 1;
+		for(int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask){
+			if(keys[i] == key){
+				return (V) values[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Indicates whether there is a value associated with the given key.
+	 * @param key The key.
+	 * @return True if there is a value associated with the given key.
+	 */
+	public boolean containsKey(long key){
+		return get(key) != null;
+	}
+
+	/**
+	 * Associate the given value with the given key.
+	 * @param key The key.
+	 * @param value The value. Can't be null.
+	 * @return The value previously associated with the key. Null if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value){
+		if(value == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "value"));
+		}
+
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		for(; values[i] != null; i = (i + 1) & mask){
+			if(keys[i] == key){
+				V previous = (V) values[i];
+				values[i] = value;
+				return previous;
+			}
+		}
+
+		keys[i] = key;
+		values[i] = value;
+		size++;
+		if(2 * size > keys.length){
+			resize(2 * keys.length);
+		}
+		return null;
+	}
+
+	/**
+	 * Remove the value associated with the given key.
+	 * @param key The key.
+	 * @return The removed value. Null if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key){
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while(values[i] != null && keys[i] != key){
+			i = (i + 1) & mask;
+		}
+		if(values[i] == null){
+			return null;
+		}
+
+		V removed = (V) values[i];
+		values[i] = null;
+		size--;
+
+		// Move back the entries of the probe sequence following the removed one
+		for(int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask){
+			int home = hash(keys[j]) & mask;
+			if(((j - home) & mask) >= ((j - i) & mask)){
+				keys[i] = keys[j];
+				values[i] = values[j];
+				values[j] = null;
+				i = j;
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Remove all the entries from the map.
+	 */
+	public void clear(){
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/**
+	 * Returns the keys in the map.
+	 * @return A new array of the keys in the map.
+	 */
+	public long[] keys(){
+		long[] result = new long[size];
+		int count = 0;
+		for(int i = 0; i < keys.length; i++){
+			if(values[i] != null){
+				result[count++] = keys[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the values in the map in the same order as the {@link #keys()}.
+	 * @return A new list of the values in the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values(){
+		List<V> result = new ArrayList<>(size);
+		for(int i = 0; i < keys.length; i++){
+			if(values[i] != null){
+				result.add((V) values[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Rebuild the tables with the given length.
+	 * @param length The new length of the tables. Has to be a power of two.
+	 */
+	private void resize(int length){
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new long[length];
+		values = new Object[length];
+
+		int mask = length - 1;
+		for(int i = 0; i < oldKeys.length; i++){
+			if(oldValues[i] != null){
+				int j = hash(oldKeys[i]) & mask;
+				while(values[j] != null){
+					j = (j + 1) & mask;
+				}
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Spread the bits of the given key.
+	 * @param key The key.
+	 * @return The hash of the key.
+	 */
+	private static int hash(long key){
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,76 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+/**
+ * The {@link KnowledgeHistory} that stores the values in a column of primitive doubles.
+ * Together with the shared columns of timestamps and operational flags a single value
+ * occupies about 17 bytes and the values can be read without boxing.
+ * The values that are not {@link Number}s can't be stored and are treated as not operational.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class NumericKnowledgeHistory extends KnowledgeHistory {
+
+	/**
+	 * The ring buffer of the values.
+	 */
+	private double[] values;
+
+	/**
+	 * Create a new empty instance of {@link NumericKnowledgeHistory}.
+	 * @param capacity The maximal count of values held in the history.
+	 * @param timeHorizon The time span in milliseconds for which the values are held.
+	 * @param evictionPolicy The strategy of making room in the full history.
+	 * @param timeSlotDuration Time slot duration in milliseconds.
+	 */
+	public NumericKnowledgeHistory(int capacity, long timeHorizon,
+			HistoryEvictionPolicy evictionPolicy, long timeSlotDuration){
+		super(capacity, timeHorizon, evictionPolicy, timeSlotDuration);
+		values = new double[bufferLength()];
+	}
+
+	@Override
+	public boolean isNumeric() {
+		return true;
+	}
+
+	@Override
+	public double getDoubleValue(int index) {
+		return values[position(index)];
+	}
+
+	@Override
+	public void getDoubleValues(int[] indices, int count, double[] values) {
+		for(int i = 0; i < count; i++){
+			values[i] = this.values[position(indices[i])];
+		}
+	}
+
+	@Override
+	protected boolean storeValue(int position, Object value) {
+		if(!(value instanceof Number)){
+			values[position] = Double.NaN;
+			return false;
+		}
+		values[position] = ((Number) value).doubleValue();
+		return true;
+	}
+
+	@Override
+	protected Object loadValue(int position) {
+		return values[position];
+	}
+
+	@Override
+	protected void clearValue(int position) {
+		// Nothing to release
+	}
+
+	@Override
+	protected void relocateValues(int[] positions, int count, int length) {
+		double[] newValues = new double[length];
+		for(int i = 0; i < count; i++){
+			newValues[i] = values[positions[i]];
+		}
+		values = newValues;
+	}
+}
@@ -0,0 +1,53 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+/**
+ * The {@link KnowledgeHistory} that stores the values as references to objects.
+ * Suitable for knowledge fields of any type.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class ObjectKnowledgeHistory extends KnowledgeHistory {
+
+	/**
+	 * The ring buffer of the values.
+	 */
+	private Object[] values;
+
+	/**
+	 * Create a new empty instance of {@link ObjectKnowledgeHistory}.
+	 * @param capacity The maximal count of values held in the history.
+	 * @param timeHorizon The time span in milliseconds for which the values are held.
+	 * @param evictionPolicy The strategy of making room in the full history.
+	 * @param timeSlotDuration Time slot duration in milliseconds.
+	 */
+	public ObjectKnowledgeHistory(int capacity, long timeHorizon,
+			HistoryEvictionPolicy evictionPolicy, long timeSlotDuration){
+		super(capacity, timeHorizon, evictionPolicy, timeSlotDuration);
+		values = new Object[bufferLength()];
+	}
+
+	@Override
+	protected boolean storeValue(int position, Object value) {
+		values[position] = value;
+		return true;
+	}
+
+	@Override
+	protected Object loadValue(int position) {
+		return values[position];
+	}
+
+	@Override
+	protected void clearValue(int position) {
+		values[position] = null;
+	}
+
+	@Override
+	protected void relocateValues(int[] positions, int count, int length) {
+		Object[] newValues = new Object[length];
+		for(int i = 0; i < count; i++){
+			newValues[i] = values[positions[i]];
+		}
+		values = newValues;
+	}
+}
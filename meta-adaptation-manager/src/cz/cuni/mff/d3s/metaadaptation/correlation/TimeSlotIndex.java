@@ -0,0 +1,135 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation;
+
+import java.util.Arrays;
+
+/**
+ * Index of the time slots covered by a {@link KnowledgeHistory}. For each time slot
+ * that contains at least one value the index holds the position of the earliest
+ * value in that slot. The time slots are sorted in ascending order regardless of
+ * the order in which the values were inserted into the history.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class TimeSlotIndex {
+
+	/**
+	 * The time slot duration in milliseconds the index is built for.
+	 */
+	private final long timeSlotDuration;
+	/**
+	 * The distinct time slots in ascending order.
+	 */
+	private final long[] slots;
+	/**
+	 * The positions of the earliest values in the corresponding time slots.
+	 */
+	private final int[] positions;
+
+	/**
+	 * Build the index of the time slots covered by the given history.
+	 * The history is expected to be mostly sorted by timestamps, in which case the
+	 * index is built in linear time.
+	 * @param history The history to be indexed.
+	 * @param timeSlotDuration The time slot duration in milliseconds.
+	 */
+	public TimeSlotIndex(KnowledgeHistory history, long timeSlotDuration){
+		this.timeSlotDuration = timeSlotDuration;
+
+		int size = history.size();
+		int[] order = null;
+		for(int i = 1; i < size; i++){
+			if(history.getTimestamp(i) < history.getTimestamp(i - 1)){
+				order = sortByTimestamp(history);
+				break;
+			}
+		}
+
+		long[] slotBuffer = new long[size];
+		int[] positionBuffer = new int[size];
+		int count = 0;
+		for(int i = 0; i < size; i++){
+			int position = order == null ? i : order[i];
+			long slot = history.getTimestamp(position) / timeSlotDuration;
+			if(count == 0 || slotBuffer[count - 1] != slot){
+				slotBuffer[count] = slot;
+				positionBuffer[count] = position;
+				count++;
+			}
+		}
+
+		slots = count == size ? slotBuffer : Arrays.copyOf(slotBuffer, count);
+		positions = count == size ? positionBuffer : Arrays.copyOf(positionBuffer, count);
+	}
+
+	/**
+	 * Returns the time slot duration in milliseconds the index is built for.
+	 * @return The time slot duration in milliseconds the index is built for.
+	 */
+	public long getTimeSlotDuration(){
+		return timeSlotDuration;
+	}
+
+	/**
+	 * Returns the count of the distinct time slots in the index.
+	 * @return The count of the distinct time slots in the index.
+	 */
+	public int size(){
+		return slots.length;
+	}
+
+	/**
+	 * Returns the time slot at the given position of the index.
+	 * @param index The position in the index.
+	 * @return The time slot at the given position of the index.
+	 */
+	public long getSlot(int index){
+		return slots[index];
+	}
+
+	/**
+	 * Returns the position in the history of the earliest value within the time slot
+	 * at the given position of the index.
+	 * @param index The position in the index.
+	 * @return The position in the history of the earliest value in the time slot.
+	 */
+	public int getPosition(int index){
+		return positions[index];
+	}
+
+	/**
+	 * Returns the position in the index of the first time slot that is not earlier than
+	 * the given one.
+	 * @param slot The time slot to look for.
+	 * @return The position in the index of the first time slot that is not earlier than
+	 * the given one. {@link #size()} if there is no such time slot.
+	 */
+	public int ceiling(long slot){
+		int index = Arrays.binarySearch(slots, slot);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	/**
+	 * Returns the positions of the values in the given history sorted by theirs timestamps.
+	 * The values with equal timestamps keep the order of insertion.
+	 * @param history The history to be sorted.
+	 * @return The positions of the values sorted by theirs timestamps.
+	 */
+	private static int[] sortByTimestamp(KnowledgeHistory history){
+		int size = history.size();
+		long[] keys = new long[size];
+		for(int i = 0; i < size; i++){
+			keys[i] = history.getTimestamp(i);
+		}
+		Integer[] boxed = new Integer[size];
+		for(int i = 0; i < size; i++){
+			boxed[i] = i;
+		}
+		// Stable sort keeps the insertion order of equal timestamps
+		Arrays.sort(boxed, (a, b) -> Long.compare(keys[a], keys[b]));
+		int[] order = new int[size];
+		for(int i = 0; i < size; i++){
+			order[i] = boxed[i];
+		}
+		return order;
+	}
+}
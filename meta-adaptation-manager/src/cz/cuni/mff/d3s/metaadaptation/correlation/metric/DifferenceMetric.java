@@ -7,7 +7,7 @@ package cz.cuni.mff.d3s.metaadaptation.correlation.metric;
  * 
  * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
  */
-public class DifferenceMetric implements Metric {
+public class DifferenceMetric implements DoubleMetric {
 
 	/**
 	 * Computes the distance between the given values as a simple difference.
@@ -23,6 +23,25 @@ public class DifferenceMetric implements Metric {
 		double d1 = ((Number)value1).doubleValue();
 		double d2 = ((Number)value2).doubleValue();
 		
-		return Math.abs(d1 - d2);
+		return distance(d1, d2);
+	}
+
+	/**
+	 * Computes the distance between the given primitive values as a simple difference.
+	 * @param value1 The value to measure the distance from.
+	 * @param value2 The value to measure the distance to.
+	 * @return the distance between the given values measured by a simple difference.
+	 */
+	@Override
+	public double distance(double value1, double value2){
+		return Math.abs(value1 - value2);
+	}
+
+	@Override
+	public void distance(double[] values1, int offset1, double[] values2, int offset2,
+			double[] distances, int offset, int length){
+		for(int i = 0; i < length; i++){
+			distances[offset + i] = Math.abs(values1[offset1 + i] - values2[offset2 + i]);
+		}
 	}
 }
@@ -0,0 +1,39 @@
+package cz.cuni.mff.d3s.metaadaptation.correlation.metric;
+
+
+/**
+ * The interface for metrics that can compute the distance between primitive double values.
+ * The distance of two {@link Number}s computed by the {@link #distance(Object, Object)}
+ * has to be the same as the distance of theirs double values computed by the
+ * {@link #distance(double, double)}. The numeric knowledge fields measured by such
+ * metrics are stored and compared without boxing.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public interface DoubleMetric extends Metric {
+
+	/**
+	 * Computes the distance between the given primitive values.
+	 * @param value1 The value to measure the distance from.
+	 * @param value2 The value to measure the distance to.
+	 * @return the distance between the given values.
+	 */
+	double distance(double value1, double value2);
+
+	/**
+	 * Computes the distances between the corresponding values of the given slices of arrays.
+	 * @param values1 The values to measure the distances from.
+	 * @param offset1 The position of the first value in the values1 array.
+	 * @param values2 The values to measure the distances to.
+	 * @param offset2 The position of the first value in the values2 array.
+	 * @param distances The array the distances are stored to.
+	 * @param offset The position of the first distance in the distances array.
+	 * @param length The count of the distances to compute.
+	 */
+	default void distance(double[] values1, int offset1, double[] values2, int offset2,
+			double[] distances, int offset, int length){
+		for(int i = 0; i < length; i++){
+			distances[offset + i] = distance(values1[offset1 + i], values2[offset2 + i]);
+		}
+	}
+}
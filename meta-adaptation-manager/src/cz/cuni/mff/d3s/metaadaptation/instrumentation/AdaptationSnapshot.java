@@ -0,0 +1,112 @@
+package cz.cuni.mff.d3s.metaadaptation.instrumentation;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable snapshot of the {@link AdaptationStatistics} of a single adaptation.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class AdaptationSnapshot {
+
+	/**
+	 * The name of the adaptation.
+	 */
+	private final String name;
+	/**
+	 * The statistics of the latencies of the individual phases.
+	 */
+	private final Map<Phase, PhaseStatistics> phases;
+	/**
+	 * The count of the analyze phases that found the adaptation applicable.
+	 */
+	private final long analyzeHits;
+	/**
+	 * The counts of the items processed by the adaptation.
+	 */
+	private final Map<String, Long> itemCounts;
+
+	/**
+	 * Create a new instance of {@link AdaptationSnapshot}.
+	 * @param name The name of the adaptation.
+	 * @param phases The statistics of the latencies of the individual phases.
+	 * @param analyzeHits The count of the analyze phases that found the adaptation applicable.
+	 * @param itemCounts The counts of the items processed by the adaptation.
+	 */
+	public AdaptationSnapshot(String name, Map<Phase, PhaseStatistics> phases, long analyzeHits,
+			Map<String, Long> itemCounts){
+		this.name = name;
+		this.phases = Collections.unmodifiableMap(new EnumMap<>(phases));
+		this.analyzeHits = analyzeHits;
+		this.itemCounts = Collections.unmodifiableMap(new TreeMap<>(itemCounts));
+	}
+
+	/**
+	 * Returns the name of the adaptation.
+	 * @return The name of the adaptation.
+	 */
+	public String getName(){
+		return name;
+	}
+
+	/**
+	 * Returns the statistics of the latencies of the given phase.
+	 * @param phase The phase of the MAPE loop.
+	 * @return The statistics of the latencies of the phase.
+	 */
+	public PhaseStatistics getPhase(Phase phase){
+		return phases.get(phase);
+	}
+
+	/**
+	 * Returns the total latency of all the phases.
+	 * @return The total latency of all the phases in nanoseconds.
+	 */
+	public long getTotalNanos(){
+		long total = 0;
+		for(PhaseStatistics phase : phases.values()){
+			total += phase.getTotalNanos();
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the count of the analyze phases that found the adaptation applicable.
+	 * @return The count of the analyze phases that returned true.
+	 */
+	public long getAnalyzeHits(){
+		return analyzeHits;
+	}
+
+	/**
+	 * Returns the ratio of the analyze phases that found the adaptation applicable.
+	 * @return The ratio of the analyze phases that returned true. NaN if the analyze
+	 * phase hasn't run.
+	 */
+	public double getAnalyzeHitRatio(){
+		long analyzed = phases.get(Phase.Analyze).getCount();
+		return analyzed == 0 ? Double.NaN : (double) analyzeHits / analyzed;
+	}
+
+	/**
+	 * Returns the counts of the items processed by the adaptation.
+	 * @return The counts of the items processed by the adaptation.
+	 */
+	public Map<String, Long> getItemCounts(){
+		return itemCounts;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%s: total=%dns analyzeHitRatio=%.3f %s%n",
+				name, getTotalNanos(), getAnalyzeHitRatio(), itemCounts));
+		for(Map.Entry<Phase, PhaseStatistics> phase : phases.entrySet()){
+			builder.append(String.format("\t%s: %s%n", phase.getKey(), phase.getValue()));
+		}
+		return builder.toString();
+	}
+}
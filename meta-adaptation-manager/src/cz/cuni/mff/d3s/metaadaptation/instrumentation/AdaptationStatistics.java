@@ -0,0 +1,165 @@
+package cz.cuni.mff.d3s.metaadaptation.instrumentation;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cz.cuni.mff.d3s.metaadaptation.MAPEAdaptation;
+
+/**
+ * Records the latencies of the phases of a single adaptation and the results
+ * of its analyze phase. The statistics are recorded by the thread running the MAPE
+ * loop and can be read from any thread, e.g. through the JMX.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class AdaptationStatistics implements AdaptationStatisticsMXBean {
+
+	/**
+	 * The name of the adaptation.
+	 */
+	private final String name;
+	/**
+	 * The adaptation the statistics are recorded for.
+	 */
+	private final MAPEAdaptation adaptation;
+	/**
+	 * The latencies of the individual phases.
+	 */
+	private final Map<Phase, LatencyHistogram> latencies;
+	/**
+	 * The count of the analyze phases that found the adaptation applicable.
+	 */
+	private final AtomicLong analyzeHits;
+
+	/**
+	 * Create a new instance of {@link AdaptationStatistics}.
+	 * @param name The name of the adaptation.
+	 * @param adaptation The adaptation the statistics are recorded for.
+	 */
+	public AdaptationStatistics(String name, MAPEAdaptation adaptation){
+		if(name == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "name"));
+		}
+		if(adaptation == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "adaptation"));
+		}
+
+		this.name = name;
+		this.adaptation = adaptation;
+		latencies = new EnumMap<>(Phase.class);
+		for(Phase phase : Phase.values()){
+			latencies.put(phase, new LatencyHistogram());
+		}
+		analyzeHits = new AtomicLong();
+	}
+
+	/**
+	 * Returns the adaptation the statistics are recorded for.
+	 * @return The adaptation the statistics are recorded for.
+	 */
+	public MAPEAdaptation getAdaptation(){
+		return adaptation;
+	}
+
+	/**
+	 * Record the latency of the given phase.
+	 * @param phase The phase of the MAPE loop.
+	 * @param nanos The latency of the phase in nanoseconds.
+	 */
+	public void record(Phase phase, long nanos){
+		latencies.get(phase).record(nanos);
+	}
+
+	/**
+	 * Record the latency and the result of the analyze phase.
+	 * @param nanos The latency of the analyze phase in nanoseconds.
+	 * @param applicable The result of the analyze phase.
+	 */
+	public void recordAnalyze(long nanos, boolean applicable){
+		if(applicable){
+			analyzeHits.incrementAndGet();
+		}
+		latencies.get(Phase.Analyze).record(nanos);
+	}
+
+	/**
+	 * Returns the statistics of the latencies of the given phase.
+	 * @param phase The phase of the MAPE loop.
+	 * @return The statistics of the latencies of the phase.
+	 */
+	public PhaseStatistics getStatistics(Phase phase){
+		return latencies.get(phase).getStatistics();
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public PhaseStatistics getMonitor() {
+		return getStatistics(Phase.Monitor);
+	}
+
+	@Override
+	public PhaseStatistics getAnalyze() {
+		return getStatistics(Phase.Analyze);
+	}
+
+	@Override
+	public PhaseStatistics getPlan() {
+		return getStatistics(Phase.Plan);
+	}
+
+	@Override
+	public PhaseStatistics getExecute() {
+		return getStatistics(Phase.Execute);
+	}
+
+	@Override
+	public long getAnalyzeHits() {
+		return analyzeHits.get();
+	}
+
+	@Override
+	public double getAnalyzeHitRatio() {
+		long analyzed = latencies.get(Phase.Analyze).getCount();
+		return analyzed == 0 ? Double.NaN : (double) analyzeHits.get() / analyzed;
+	}
+
+	@Override
+	public Map<String, Long> getItemCounts() {
+		if(adaptation instanceof ItemCounters){
+			return new TreeMap<>(((ItemCounters) adaptation).getItemCounts());
+		}
+		return Collections.emptyMap();
+	}
+
+	@Override
+	public void reset() {
+		for(LatencyHistogram histogram : latencies.values()){
+			histogram.reset();
+		}
+		analyzeHits.set(0);
+	}
+
+	/**
+	 * Takes a consistent copy of the statistics.
+	 * @return The snapshot of the statistics.
+	 */
+	public AdaptationSnapshot getSnapshot(){
+		Map<Phase, PhaseStatistics> phases = new EnumMap<>(Phase.class);
+		for(Phase phase : Phase.values()){
+			phases.put(phase, getStatistics(phase));
+		}
+		return new AdaptationSnapshot(name, phases, analyzeHits.get(), getItemCounts());
+	}
+
+	@Override
+	public String toString() {
+		return getSnapshot().toString();
+	}
+}
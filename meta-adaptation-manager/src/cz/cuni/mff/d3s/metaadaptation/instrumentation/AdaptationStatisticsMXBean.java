@@ -0,0 +1,68 @@
+package cz.cuni.mff.d3s.metaadaptation.instrumentation;
+
+import java.util.Map;
+
+/**
+ * The management interface of the statistics of a single adaptation
+ * run by the {@link cz.cuni.mff.d3s.metaadaptation.MetaAdaptationManager}.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public interface AdaptationStatisticsMXBean {
+
+	/**
+	 * Returns the name of the adaptation.
+	 * @return The name of the adaptation.
+	 */
+	public String getName();
+
+	/**
+	 * Returns the statistics of the latencies of the monitor phase.
+	 * @return The statistics of the latencies of the monitor phase.
+	 */
+	public PhaseStatistics getMonitor();
+
+	/**
+	 * Returns the statistics of the latencies of the analyze phase.
+	 * @return The statistics of the latencies of the analyze phase.
+	 */
+	public PhaseStatistics getAnalyze();
+
+	/**
+	 * Returns the statistics of the latencies of the plan phase.
+	 * @return The statistics of the latencies of the plan phase.
+	 */
+	public PhaseStatistics getPlan();
+
+	/**
+	 * Returns the statistics of the latencies of the execute phase.
+	 * @return The statistics of the latencies of the execute phase.
+	 */
+	public PhaseStatistics getExecute();
+
+	/**
+	 * Returns the count of the analyze phases that found the adaptation applicable.
+	 * @return The count of the analyze phases that returned true.
+	 */
+	public long getAnalyzeHits();
+
+	/**
+	 * Returns the ratio of the analyze phases that found the adaptation applicable.
+	 * @return The ratio of the analyze phases that returned true. NaN if the analyze
+	 * phase hasn't run yet.
+	 */
+	public double getAnalyzeHitRatio();
+
+	/**
+	 * Returns the counts of the items processed by the adaptation.
+	 * @return The counts of the items processed by the adaptation. Empty if the adaptation
+	 * doesn't implement the {@link ItemCounters}.
+	 */
+	public Map<String, Long> getItemCounts();
+
+	/**
+	 * Clear the recorded latencies and analyze hits. The item counts are kept
+	 * by the adaptation and are not cleared.
+	 */
+	public void reset();
+}
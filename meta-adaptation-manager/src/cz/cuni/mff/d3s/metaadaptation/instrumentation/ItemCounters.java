@@ -0,0 +1,20 @@
+package cz.cuni.mff.d3s.metaadaptation.instrumentation;
+
+import java.util.Map;
+
+/**
+ * Implemented by the adaptations that count the items they process, e.g. the samples
+ * ingested or the ports removed. The counters are reported by the {@link MAPEInstrumentation}
+ * along with the timing of the phases.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public interface ItemCounters {
+
+	/**
+	 * Returns the counts of the items processed since the adaptation was created.
+	 * The counts never decrease. Can be called from any thread.
+	 * @return The counts of the processed items identified by the names of the items.
+	 */
+	public Map<String, Long> getItemCounts();
+}
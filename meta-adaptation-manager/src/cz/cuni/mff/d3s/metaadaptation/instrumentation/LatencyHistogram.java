@@ -0,0 +1,180 @@
+package cz.cuni.mff.d3s.metaadaptation.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds with a bounded relative error. The latencies
+ * below {@link #SUB_BUCKET_COUNT} are counted exactly, the larger latencies are counted
+ * in buckets of the width of 1/64 of theirs magnitude, so the percentiles are reported
+ * with less than 1.6 % error in constant memory and each latency is recorded in constant
+ * time without allocation.
+ * <p>
+ * The latencies can be recorded and read concurrently. A read that overlaps a record
+ * may miss the latency being recorded.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The count of the buckets per power of two. The latencies below this count are
+	 * counted exactly.
+	 */
+	private static final int SUB_BUCKET_COUNT = 128;
+	/**
+	 * The binary logarithm of the {@link #SUB_BUCKET_COUNT}.
+	 */
+	private static final int SUB_BUCKET_BITS = 7;
+	/**
+	 * The count of the buckets covering the whole range of long.
+	 */
+	private static final int BUCKET_COUNT = SUB_BUCKET_COUNT
+			+ (Long.SIZE - SUB_BUCKET_BITS) * (SUB_BUCKET_COUNT / 2);
+
+	/**
+	 * The counts of the latencies in the buckets.
+	 */
+	private final AtomicLongArray counts;
+	/**
+	 * The count of all the recorded latencies.
+	 */
+	private final AtomicLong count;
+	/**
+	 * The sum of all the recorded latencies.
+	 */
+	private final AtomicLong total;
+	/**
+	 * The smallest recorded latency.
+	 */
+	private final AtomicLong min;
+	/**
+	 * The largest recorded latency.
+	 */
+	private final AtomicLong max;
+
+	/**
+	 * Create a new empty instance of {@link LatencyHistogram}.
+	 */
+	public LatencyHistogram(){
+		counts = new AtomicLongArray(BUCKET_COUNT);
+		count = new AtomicLong();
+		total = new AtomicLong();
+		min = new AtomicLong(Long.MAX_VALUE);
+		max = new AtomicLong(Long.MIN_VALUE);
+	}
+
+	/**
+	 * Record the given latency. The negative latencies are recorded as 0.
+	 * @param nanos The latency in nanoseconds.
+	 */
+	public void record(long nanos){
+		long latency = Math.max(0, nanos);
+		counts.incrementAndGet(getBucket(latency));
+		total.addAndGet(latency);
+		if(latency < min.get()){
+			min.accumulateAndGet(latency, Math::min);
+		}
+		if(latency > max.get()){
+			max.accumulateAndGet(latency, Math::max);
+		}
+		count.incrementAndGet();
+	}
+
+	/**
+	 * Returns the count of the recorded latencies.
+	 * @return The count of the recorded latencies.
+	 */
+	public long getCount(){
+		return count.get();
+	}
+
+	/**
+	 * Returns the statistics of the latencies recorded so far.
+	 * @return The statistics of the recorded latencies.
+	 */
+	public PhaseStatistics getStatistics(){
+		long[] snapshot = new long[BUCKET_COUNT];
+		long snapshotCount = 0;
+		for(int i = 0; i < BUCKET_COUNT; i++){
+			snapshot[i] = counts.get(i);
+			snapshotCount += snapshot[i];
+		}
+		if(snapshotCount == 0){
+			return new PhaseStatistics(0, 0, 0, 0, 0, 0, 0, 0);
+		}
+		long minimum = min.get();
+		long maximum = max.get();
+		return new PhaseStatistics(snapshotCount, total.get(), minimum, maximum,
+				getPercentile(snapshot, snapshotCount, 0.5, minimum, maximum),
+				getPercentile(snapshot, snapshotCount, 0.9, minimum, maximum),
+				getPercentile(snapshot, snapshotCount, 0.99, minimum, maximum),
+				getPercentile(snapshot, snapshotCount, 0.999, minimum, maximum));
+	}
+
+	/**
+	 * Clear all the recorded latencies.
+	 */
+	public void reset(){
+		for(int i = 0; i < BUCKET_COUNT; i++){
+			counts.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		min.set(Long.MAX_VALUE);
+		max.set(Long.MIN_VALUE);
+	}
+
+	/**
+	 * Returns the latency below which the given fraction of the latencies in the given
+	 * bucket counts lies. The latency is the upper edge of its bucket limited by the
+	 * extreme latencies.
+	 * @param snapshot The counts of the latencies in the buckets.
+	 * @param snapshotCount The count of all the latencies in the buckets.
+	 * @param fraction The fraction of the latencies from the interval (0,1].
+	 * @param minimum The smallest recorded latency.
+	 * @param maximum The largest recorded latency.
+	 * @return The latency below which the given fraction of the latencies lies.
+	 */
+	private static long getPercentile(long[] snapshot, long snapshotCount, double fraction,
+			long minimum, long maximum){
+		long rank = Math.max(1, (long) Math.ceil(fraction * snapshotCount));
+		long cumulative = 0;
+		for(int i = 0; i < snapshot.length; i++){
+			cumulative += snapshot[i];
+			if(cumulative >= rank){
+				return Math.max(minimum, Math.min(maximum, getUpperEdge(i)));
+			}
+		}
+		return maximum;
+	}
+
+	/**
+	 * Returns the bucket the given latency is counted in.
+	 * @param latency The non-negative latency.
+	 * @return The index of the bucket.
+	 */
+	private static int getBucket(long latency){
+		if(latency < SUB_BUCKET_COUNT){
+			return (int) latency;
+		}
+		int shift = Long.SIZE - Long.numberOfLeadingZeros(latency) - SUB_BUCKET_BITS;
+		int subBucket = (int) (latency >>> shift) - SUB_BUCKET_COUNT / 2;
+		return SUB_BUCKET_COUNT + (shift - 1) * (SUB_BUCKET_COUNT / 2) + subBucket;
+	}
+
+	/**
+	 * Returns the largest latency counted in the given bucket.
+	 * @param bucket The index of the bucket.
+	 * @return The largest latency counted in the bucket.
+	 */
+	private static long getUpperEdge(int bucket){
+		if(bucket < SUB_BUCKET_COUNT){
+			return bucket;
+		}
+		int shift = (bucket - SUB_BUCKET_COUNT) / (SUB_BUCKET_COUNT / 2) + 1;
+		long subBucket = (bucket - SUB_BUCKET_COUNT) % (SUB_BUCKET_COUNT / 2) + SUB_BUCKET_COUNT / 2;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
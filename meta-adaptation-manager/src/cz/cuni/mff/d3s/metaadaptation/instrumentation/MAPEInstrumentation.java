@@ -0,0 +1,187 @@
+package cz.cuni.mff.d3s.metaadaptation.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import cz.cuni.mff.d3s.metaadaptation.MAPEAdaptation;
+
+/**
+ * Collects the {@link AdaptationStatistics} of the adaptations run by the
+ * {@link cz.cuni.mff.d3s.metaadaptation.MetaAdaptationManager}. The statistics of
+ * an adaptation are created when the adaptation runs for the first time and are named
+ * by the simple name of its class, numbered if the name repeats.
+ * <p>
+ * The statistics can be read programmatically by the {@link #getSnapshot()} or through
+ * the JMX once the {@link #registerMBeans()} is called. Each adaptation is then registered
+ * as an MXBean named "cz.cuni.mff.d3s.metaadaptation:type=AdaptationStatistics,name=..."
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class MAPEInstrumentation {
+
+	/**
+	 * The domain of the names of the MXBeans.
+	 */
+	public static final String JMX_DOMAIN = "cz.cuni.mff.d3s.metaadaptation";
+
+	/**
+	 * The statistics of the adaptations in the order the adaptations run for the first time.
+	 */
+	private final List<AdaptationStatistics> statistics;
+	/**
+	 * The server the MXBeans are registered to. Null if the MXBeans are not registered.
+	 */
+	private MBeanServer server;
+	/**
+	 * The names of the registered MXBeans.
+	 */
+	private final List<ObjectName> registeredNames;
+
+	/**
+	 * Create a new empty instance of {@link MAPEInstrumentation}.
+	 */
+	public MAPEInstrumentation(){
+		statistics = new CopyOnWriteArrayList<>();
+		server = null;
+		registeredNames = new ArrayList<>();
+	}
+
+	/**
+	 * Returns the statistics of the given adaptation, creating them if the adaptation
+	 * runs for the first time.
+	 * @param adaptation The adaptation.
+	 * @return The statistics of the given adaptation.
+	 */
+	public AdaptationStatistics getStatistics(MAPEAdaptation adaptation){
+		for(AdaptationStatistics adaptationStatistics : statistics){
+			if(adaptationStatistics.getAdaptation() == adaptation){
+				return adaptationStatistics;
+			}
+		}
+		return addStatistics(adaptation);
+	}
+
+	/**
+	 * Returns the snapshots of the statistics of all the adaptations that have run.
+	 * @return The snapshots of the statistics in the order the adaptations run for the first time.
+	 */
+	public List<AdaptationSnapshot> getSnapshot(){
+		List<AdaptationSnapshot> snapshot = new ArrayList<>();
+		for(AdaptationStatistics adaptationStatistics : statistics){
+			snapshot.add(adaptationStatistics.getSnapshot());
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Clear the recorded latencies and analyze hits of all the adaptations.
+	 */
+	public void reset(){
+		for(AdaptationStatistics adaptationStatistics : statistics){
+			adaptationStatistics.reset();
+		}
+	}
+
+	/**
+	 * Register the statistics of the adaptations as MXBeans to the platform MBean server.
+	 * The statistics of the adaptations that run later are registered as they appear.
+	 * @throws JMException If the registration fails.
+	 */
+	public void registerMBeans() throws JMException {
+		registerMBeans(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	/**
+	 * Register the statistics of the adaptations as MXBeans to the given MBean server.
+	 * The statistics of the adaptations that run later are registered as they appear.
+	 * @param server The server to register the MXBeans to.
+	 * @throws JMException If the registration fails.
+	 */
+	public synchronized void registerMBeans(MBeanServer server) throws JMException {
+		if(server == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "server"));
+		}
+		unregisterMBeans();
+		this.server = server;
+		for(AdaptationStatistics adaptationStatistics : statistics){
+			register(adaptationStatistics);
+		}
+	}
+
+	/**
+	 * Unregister all the MXBeans registered by the {@link #registerMBeans(MBeanServer)}.
+	 * @throws JMException If the unregistration fails.
+	 */
+	public synchronized void unregisterMBeans() throws JMException {
+		if(server == null){
+			return;
+		}
+		for(ObjectName name : registeredNames){
+			if(server.isRegistered(name)){
+				server.unregisterMBean(name);
+			}
+		}
+		registeredNames.clear();
+		server = null;
+	}
+
+	/**
+	 * Creates the statistics of the given adaptation and registers them to the MBean server
+	 * if the MXBeans are registered.
+	 * @param adaptation The adaptation.
+	 * @return The statistics of the given adaptation.
+	 */
+	private synchronized AdaptationStatistics addStatistics(MAPEAdaptation adaptation){
+		String simpleName = adaptation.getClass().getSimpleName();
+		String name = simpleName;
+		int number = 1;
+		while(containsName(name)){
+			name = String.format("%s-%d", simpleName, ++number);
+		}
+
+		AdaptationStatistics adaptationStatistics = new AdaptationStatistics(name, adaptation);
+		statistics.add(adaptationStatistics);
+		if(server != null){
+			try {
+				register(adaptationStatistics);
+			} catch(JMException e){
+				System.err.println(String.format("Failed to register the statistics of %s: %s",
+						name, e.getMessage()));
+			}
+		}
+		return adaptationStatistics;
+	}
+
+	/**
+	 * Indicates whether there are statistics of the given name.
+	 * @param name The name of the statistics.
+	 * @return True if there are statistics of the given name.
+	 */
+	private boolean containsName(String name){
+		for(AdaptationStatistics adaptationStatistics : statistics){
+			if(adaptationStatistics.getName().equals(name)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Register the given statistics to the {@link #server}.
+	 * @param adaptationStatistics The statistics to be registered.
+	 * @throws JMException If the registration fails.
+	 */
+	private void register(AdaptationStatistics adaptationStatistics) throws JMException {
+		ObjectName name = new ObjectName(String.format("%s:type=AdaptationStatistics,name=%s",
+				JMX_DOMAIN, ObjectName.quote(adaptationStatistics.getName())));
+		server.registerMBean(adaptationStatistics, name);
+		registeredNames.add(name);
+	}
+}
@@ -0,0 +1,13 @@
+package cz.cuni.mff.d3s.metaadaptation.instrumentation;
+
+/**
+ * The phases of the MAPE loop of a {@link cz.cuni.mff.d3s.metaadaptation.MAPEAdaptation}.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public enum Phase {
+	Monitor,
+	Analyze,
+	Plan,
+	Execute;
+}
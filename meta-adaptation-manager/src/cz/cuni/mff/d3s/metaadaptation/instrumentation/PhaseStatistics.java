@@ -0,0 +1,149 @@
+package cz.cuni.mff.d3s.metaadaptation.instrumentation;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The statistics of the latencies of a phase of the MAPE loop. The instances are
+ * immutable snapshots taken by the {@link LatencyHistogram#getStatistics()}.
+ * All the latencies are in nanoseconds, the percentiles are accurate to 1.6 %.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class PhaseStatistics {
+
+	/**
+	 * The count of the invocations of the phase.
+	 */
+	private final long count;
+	/**
+	 * The total latency of all the invocations.
+	 */
+	private final long totalNanos;
+	/**
+	 * The smallest latency.
+	 */
+	private final long minNanos;
+	/**
+	 * The largest latency.
+	 */
+	private final long maxNanos;
+	/**
+	 * The median latency.
+	 */
+	private final long p50Nanos;
+	/**
+	 * The 90th percentile of the latencies.
+	 */
+	private final long p90Nanos;
+	/**
+	 * The 99th percentile of the latencies.
+	 */
+	private final long p99Nanos;
+	/**
+	 * The 99.9th percentile of the latencies.
+	 */
+	private final long p999Nanos;
+
+	/**
+	 * Create a new instance of {@link PhaseStatistics}.
+	 * @param count The count of the invocations of the phase.
+	 * @param totalNanos The total latency of all the invocations.
+	 * @param minNanos The smallest latency.
+	 * @param maxNanos The largest latency.
+	 * @param p50Nanos The median latency.
+	 * @param p90Nanos The 90th percentile of the latencies.
+	 * @param p99Nanos The 99th percentile of the latencies.
+	 * @param p999Nanos The 99.9th percentile of the latencies.
+	 */
+	@ConstructorProperties({"count", "totalNanos", "minNanos", "maxNanos",
+		"p50Nanos", "p90Nanos", "p99Nanos", "p999Nanos"})
+	public PhaseStatistics(long count, long totalNanos, long minNanos, long maxNanos,
+			long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos){
+		this.count = count;
+		this.totalNanos = totalNanos;
+		this.minNanos = minNanos;
+		this.maxNanos = maxNanos;
+		this.p50Nanos = p50Nanos;
+		this.p90Nanos = p90Nanos;
+		this.p99Nanos = p99Nanos;
+		this.p999Nanos = p999Nanos;
+	}
+
+	/**
+	 * Returns the count of the invocations of the phase.
+	 * @return The count of the invocations of the phase.
+	 */
+	public long getCount(){
+		return count;
+	}
+
+	/**
+	 * Returns the total latency of all the invocations.
+	 * @return The total latency in nanoseconds.
+	 */
+	public long getTotalNanos(){
+		return totalNanos;
+	}
+
+	/**
+	 * Returns the smallest latency.
+	 * @return The smallest latency in nanoseconds. 0 if there was no invocation.
+	 */
+	public long getMinNanos(){
+		return minNanos;
+	}
+
+	/**
+	 * Returns the largest latency.
+	 * @return The largest latency in nanoseconds. 0 if there was no invocation.
+	 */
+	public long getMaxNanos(){
+		return maxNanos;
+	}
+
+	/**
+	 * Returns the mean latency.
+	 * @return The mean latency in nanoseconds. 0 if there was no invocation.
+	 */
+	public double getMeanNanos(){
+		return count == 0 ? 0 : (double) totalNanos / count;
+	}
+
+	/**
+	 * Returns the median latency.
+	 * @return The median latency in nanoseconds.
+	 */
+	public long getP50Nanos(){
+		return p50Nanos;
+	}
+
+	/**
+	 * Returns the 90th percentile of the latencies.
+	 * @return The 90th percentile of the latencies in nanoseconds.
+	 */
+	public long getP90Nanos(){
+		return p90Nanos;
+	}
+
+	/**
+	 * Returns the 99th percentile of the latencies.
+	 * @return The 99th percentile of the latencies in nanoseconds.
+	 */
+	public long getP99Nanos(){
+		return p99Nanos;
+	}
+
+	/**
+	 * Returns the 99.9th percentile of the latencies.
+	 * @return The 99.9th percentile of the latencies in nanoseconds.
+	 */
+	public long getP999Nanos(){
+		return p999Nanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d mean=%.0fns p50=%dns p90=%dns p99=%dns p99.9=%dns max=%dns",
+				count, getMeanNanos(), p50Nanos, p90Nanos, p99Nanos, p999Nanos, maxNanos);
+	}
+}
@@ -0,0 +1,208 @@
+package cz.cuni.mff.d3s.metaadaptation.simulation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import cz.cuni.mff.d3s.metaadaptation.componentisolation.Port;
+import cz.cuni.mff.d3s.metaadaptation.correlation.CorrelationMetadataWrapper;
+
+/**
+ * A component of the {@link SimulatedSystem}. The component moves along a line
+ * and its sensors measure linear functions of its position with a gaussian noise,
+ * so the knowledge fields are correlated among the nearby components. A faulty
+ * sensor reports random values marked as not operational.
+ * <p>
+ * The component has one port exposing all its sensors, which is restored once
+ * the component recovers from its faults.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class SimulatedComponent implements cz.cuni.mff.d3s.metaadaptation.correlation.Component,
+		cz.cuni.mff.d3s.metaadaptation.componentisolation.Component,
+		cz.cuni.mff.d3s.metaadaptation.modeswitch.Component,
+		cz.cuni.mff.d3s.metaadaptation.modeswitchprops.Component {
+
+	/**
+	 * The range of the random values reported by a faulty sensor.
+	 */
+	private static final double FAULTY_VALUE_RANGE = 1000;
+
+	/**
+	 * The position of the component in the system.
+	 */
+	private final int id;
+	/**
+	 * The type of the component.
+	 */
+	private final SimulatedComponentType type;
+	/**
+	 * The mode chart of the component.
+	 */
+	private final SimulatedModeChart modeChart;
+	/**
+	 * The latest samples of the sensors identified by theirs labels.
+	 */
+	private final Map<String, Object> knowledge;
+	/**
+	 * The labels of the faulty sensors.
+	 */
+	private final Set<String> faultyKnowledge;
+	/**
+	 * The ports of the component.
+	 */
+	private final Set<SimulatedPort> ports;
+	/**
+	 * The port exposing all the sensors of the component.
+	 */
+	private final SimulatedPort defaultPort;
+	/**
+	 * The time the faults of the component are repaired at.
+	 */
+	private long repairTime;
+	/**
+	 * The position of the component.
+	 */
+	private double position;
+	/**
+	 * The current utility of the component.
+	 */
+	private double utility;
+
+	/**
+	 * Create a new instance of {@link SimulatedComponent}.
+	 * @param id The position of the component in the system.
+	 * @param type The type of the component.
+	 * @param modeChart The mode chart of the component.
+	 * @param sensorCount The count of the sensors of the component.
+	 */
+	SimulatedComponent(int id, SimulatedComponentType type, SimulatedModeChart modeChart, int sensorCount){
+		this.id = id;
+		this.type = type;
+		this.modeChart = modeChart;
+		knowledge = new HashMap<>();
+		faultyKnowledge = new HashSet<>();
+		Set<String> sensors = new HashSet<>();
+		for(int i = 0; i < sensorCount; i++){
+			sensors.add(SimulatedSystem.getSensorLabel(i));
+		}
+		defaultPort = new SimulatedPort(sensors);
+		ports = new LinkedHashSet<>();
+		ports.add(defaultPort);
+		repairTime = Long.MIN_VALUE;
+		position = id;
+		utility = 0;
+	}
+
+	@Override
+	public Map<String, Object> getKnowledge() {
+		return Collections.unmodifiableMap(knowledge);
+	}
+
+	@Override
+	public Set<String> getFaultyKnowledge() {
+		return faultyKnowledge.isEmpty()
+				? Collections.<String>emptySet()
+				: new HashSet<>(faultyKnowledge);
+	}
+
+	@Override
+	public Set<SimulatedPort> getPorts() {
+		return Collections.unmodifiableSet(ports);
+	}
+
+	@Override
+	public SimulatedPort addPort(Set<String> exposedKnowledge) {
+		if(exposedKnowledge == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "exposedKnowledge"));
+		}
+		SimulatedPort port = new SimulatedPort(exposedKnowledge);
+		ports.add(port);
+		return port;
+	}
+
+	@Override
+	public void removePort(Port port) {
+		ports.remove(port);
+	}
+
+	@Override
+	public SimulatedComponentType getType() {
+		return type;
+	}
+
+	@Override
+	public double getUtility() {
+		return utility;
+	}
+
+	@Override
+	public SimulatedModeChart getModeChart() {
+		return modeChart;
+	}
+
+	/**
+	 * Indicates whether any sensor of the component is faulty.
+	 * @return True if any sensor of the component is faulty.
+	 */
+	public boolean isFaulty(){
+		return !faultyKnowledge.isEmpty();
+	}
+
+	/**
+	 * Break the given sensor until the given time.
+	 * @param label The label of the sensor.
+	 * @param repairTime The time the faults of the component are repaired at.
+	 */
+	void fail(String label, long repairTime){
+		faultyKnowledge.add(label);
+		this.repairTime = Math.max(this.repairTime, repairTime);
+	}
+
+	/**
+	 * Move the component, switch its mode and take a new sample of all its sensors.
+	 * The faults are repaired if theirs repair time has come.
+	 * @param time The current time in milliseconds.
+	 * @param sensorCount The count of the sensors of the component.
+	 * @param speed The standard deviation of the move of the component in a single step.
+	 * @param noise The standard deviation of the noise of the first sensor. The noise
+	 * of each sensor is proportional to its gain.
+	 * @param jitter The maximal delay of a sample after the given time in milliseconds.
+	 * @param random The source of the randomness.
+	 */
+	void step(long time, int sensorCount, double speed, double noise, int jitter, Random random){
+		if(isFaulty() && time >= repairTime){
+			faultyKnowledge.clear();
+			ports.add(defaultPort);
+		}
+
+		position += speed * random.nextGaussian();
+		modeChart.step();
+		utility = modeChart.getCurrentMode().getUtility();
+
+		for(int i = 0; i < sensorCount; i++){
+			String label = SimulatedSystem.getSensorLabel(i);
+			long timestamp = time + (jitter == 0 ? 0 : random.nextInt(jitter + 1));
+			CorrelationMetadataWrapper<Double> sample;
+			if(faultyKnowledge.contains(label)){
+				sample = new CorrelationMetadataWrapper<>(FAULTY_VALUE_RANGE * random.nextDouble(), label, timestamp);
+				sample.malfunction();
+			} else {
+				double gain = i + 1;
+				sample = new CorrelationMetadataWrapper<>(
+						gain * (position + noise * random.nextGaussian()), label, timestamp);
+			}
+			knowledge.put(label, sample);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("C%d", id);
+	}
+}
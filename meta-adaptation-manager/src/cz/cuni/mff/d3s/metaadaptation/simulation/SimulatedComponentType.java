@@ -0,0 +1,66 @@
+package cz.cuni.mff.d3s.metaadaptation.simulation;
+
+/**
+ * A type of the {@link SimulatedComponent}s. The average utility of the type
+ * is updated by the {@link SimulatedSystem} in each step.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class SimulatedComponentType implements cz.cuni.mff.d3s.metaadaptation.modeswitch.ComponentType,
+		cz.cuni.mff.d3s.metaadaptation.modeswitchprops.ComponentType {
+
+	/**
+	 * The position of the type in the system.
+	 */
+	private final int id;
+	/**
+	 * The utility below which the components of the type perform poorly.
+	 */
+	private final double utilityThreshold;
+	/**
+	 * The average utility of the components of the type.
+	 */
+	private double averageUtility;
+
+	/**
+	 * Create a new instance of {@link SimulatedComponentType}.
+	 * @param id The position of the type in the system.
+	 * @param utilityThreshold The utility below which the components of the type perform poorly.
+	 */
+	SimulatedComponentType(int id, double utilityThreshold){
+		this.id = id;
+		this.utilityThreshold = utilityThreshold;
+		averageUtility = 0;
+	}
+
+	/**
+	 * Returns the position of the type in the system.
+	 * @return The position of the type in the system.
+	 */
+	int getId(){
+		return id;
+	}
+
+	@Override
+	public double getAverageUtility() {
+		return averageUtility;
+	}
+
+	@Override
+	public double getUtilityThreshold() {
+		return utilityThreshold;
+	}
+
+	/**
+	 * Set the average utility of the components of the type.
+	 * @param averageUtility The average utility of the components of the type.
+	 */
+	void setAverageUtility(double averageUtility){
+		this.averageUtility = averageUtility;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("T%d", id);
+	}
+}
@@ -0,0 +1,78 @@
+package cz.cuni.mff.d3s.metaadaptation.simulation;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import cz.cuni.mff.d3s.metaadaptation.correlation.ConnectorManager.MediatedKnowledge;
+import cz.cuni.mff.d3s.metaadaptation.correlation.ConnectorPort;
+import cz.cuni.mff.d3s.metaadaptation.correlation.DynamicConnector;
+import cz.cuni.mff.d3s.metaadaptation.correlation.Kind;
+
+/**
+ * A connector deployed to the {@link SimulatedSystem}. The connector only records
+ * its filter, the knowledge it mediates and the count of its ports.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class SimulatedConnector implements DynamicConnector {
+
+	/**
+	 * The filter of the members of the connector.
+	 */
+	private final Predicate<Map<String, Object>> filter;
+	/**
+	 * The knowledge mediated by the connector.
+	 */
+	private final MediatedKnowledge mediatedKnowledge;
+	/**
+	 * The count of the ports added to the connector.
+	 */
+	private int portCount;
+
+	/**
+	 * Create a new instance of {@link SimulatedConnector}.
+	 * @param filter The filter of the members of the connector.
+	 * @param mediatedKnowledge The knowledge mediated by the connector.
+	 */
+	SimulatedConnector(Predicate<Map<String, Object>> filter, MediatedKnowledge mediatedKnowledge){
+		this.filter = filter;
+		this.mediatedKnowledge = mediatedKnowledge;
+		portCount = 0;
+	}
+
+	/**
+	 * Returns the filter of the members of the connector.
+	 * @return The filter of the members of the connector.
+	 */
+	public Predicate<Map<String, Object>> getFilter(){
+		return filter;
+	}
+
+	/**
+	 * Returns the knowledge mediated by the connector.
+	 * @return The knowledge mediated by the connector.
+	 */
+	public MediatedKnowledge getMediatedKnowledge(){
+		return mediatedKnowledge;
+	}
+
+	/**
+	 * Returns the count of the ports added to the connector.
+	 * @return The count of the ports added to the connector.
+	 */
+	public int getPortCount(){
+		return portCount;
+	}
+
+	@Override
+	public ConnectorPort addPort(Set<String> assumedKnowledge, Kind kind) {
+		portCount++;
+		return new ConnectorPort() {};
+	}
+
+	@Override
+	public String toString() {
+		return String.valueOf(mediatedKnowledge);
+	}
+}
@@ -0,0 +1,51 @@
+package cz.cuni.mff.d3s.metaadaptation.simulation;
+
+/**
+ * A mode of a {@link SimulatedModeChart}. The utility of a component
+ * depends on the mode the component is in.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class SimulatedMode implements cz.cuni.mff.d3s.metaadaptation.modeswitch.Mode,
+		cz.cuni.mff.d3s.metaadaptation.modeswitchprops.Mode {
+
+	/**
+	 * The position of the mode in its mode chart.
+	 */
+	private final int id;
+	/**
+	 * The utility of a component in the mode.
+	 */
+	private final double utility;
+
+	/**
+	 * Create a new instance of {@link SimulatedMode}.
+	 * @param id The position of the mode in its mode chart.
+	 * @param utility The utility of a component in the mode.
+	 */
+	SimulatedMode(int id, double utility){
+		this.id = id;
+		this.utility = utility;
+	}
+
+	/**
+	 * Returns the position of the mode in its mode chart.
+	 * @return The position of the mode in its mode chart.
+	 */
+	public int getId(){
+		return id;
+	}
+
+	/**
+	 * Returns the utility of a component in the mode.
+	 * @return The utility of a component in the mode.
+	 */
+	public double getUtility(){
+		return utility;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("M%d", id);
+	}
+}
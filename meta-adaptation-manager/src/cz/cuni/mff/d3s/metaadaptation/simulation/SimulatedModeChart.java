@@ -0,0 +1,135 @@
+package cz.cuni.mff.d3s.metaadaptation.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The mode chart of a {@link SimulatedComponent}. The transitions added by the mode
+ * switching adaptation are guarded by theirs own guards, the generated transitions
+ * are taken with the probability given by theirs {@link #PROBABILITY_PARAM} guard
+ * parameter, so the adaptation of the guard parameters changes the behaviour.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class SimulatedModeChart implements cz.cuni.mff.d3s.metaadaptation.modeswitch.ModeChart,
+		cz.cuni.mff.d3s.metaadaptation.modeswitchprops.ModeChart {
+
+	/**
+	 * The name of the guard parameter holding the probability of taking the transition.
+	 */
+	public static final String PROBABILITY_PARAM = "probability";
+
+	/**
+	 * The modes of the chart.
+	 */
+	private final List<SimulatedMode> modes;
+	/**
+	 * The transitions of the chart.
+	 */
+	private final Set<SimulatedTransition> transitions;
+	/**
+	 * The source of the randomness of the generated guards.
+	 */
+	private final Random random;
+	/**
+	 * The mode the chart is in.
+	 */
+	private SimulatedMode currentMode;
+
+	/**
+	 * Create a new instance of {@link SimulatedModeChart} with the given count of modes
+	 * and random transitions. The utility of the modes grows with theirs position in the chart.
+	 * @param modeCount The count of the modes.
+	 * @param transitionCount The count of the transitions between distinct modes.
+	 * At most modeCount * (modeCount - 1) transitions are created.
+	 * @param random The source of the randomness of the chart.
+	 */
+	SimulatedModeChart(int modeCount, int transitionCount, Random random){
+		this.random = random;
+		modes = new ArrayList<>(modeCount);
+		for(int i = 0; i < modeCount; i++){
+			modes.add(new SimulatedMode(i, (i + 1.0) / modeCount));
+		}
+		transitions = new LinkedHashSet<>();
+		int count = Math.min(transitionCount, modeCount * (modeCount - 1));
+		boolean[] used = new boolean[modeCount * modeCount];
+		while(transitions.size() < count){
+			int from = random.nextInt(modeCount);
+			int to = random.nextInt(modeCount);
+			if(from == to || used[from * modeCount + to]){
+				continue;
+			}
+			used[from * modeCount + to] = true;
+			final Map<String, Double> guardParams = new HashMap<>();
+			guardParams.put(PROBABILITY_PARAM, random.nextDouble() / 2);
+			transitions.add(new SimulatedTransition(modes.get(from), modes.get(to),
+					t -> random.nextDouble() < guardParams.get(PROBABILITY_PARAM), guardParams, 0));
+		}
+		currentMode = modes.get(0);
+	}
+
+	@Override
+	public Set<SimulatedMode> getModes() {
+		return new LinkedHashSet<>(modes);
+	}
+
+	@Override
+	public SimulatedMode getCurrentMode() {
+		return currentMode;
+	}
+
+	@Override
+	public Set<SimulatedTransition> getTransitions() {
+		return Collections.unmodifiableSet(transitions);
+	}
+
+	@Override
+	public SimulatedTransition addTransition(cz.cuni.mff.d3s.metaadaptation.modeswitch.Mode from,
+			cz.cuni.mff.d3s.metaadaptation.modeswitch.Mode to, Predicate<Void> guard) {
+		if(!modes.contains(from)){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is not a mode of the chart.", "from"));
+		}
+		if(!modes.contains(to)){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is not a mode of the chart.", "to"));
+		}
+		if(guard == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "guard"));
+		}
+		SimulatedTransition transition = new SimulatedTransition((SimulatedMode) from,
+				(SimulatedMode) to, guard, new HashMap<String, Double>(), 0);
+		transitions.add(transition);
+		return transition;
+	}
+
+	@Override
+	public void removeTransition(cz.cuni.mff.d3s.metaadaptation.modeswitch.Transition transition) {
+		transitions.remove(transition);
+	}
+
+	/**
+	 * Take the transition of the highest priority from the current mode whose guard holds.
+	 * The current mode is kept if no guard holds.
+	 */
+	void step(){
+		SimulatedTransition taken = null;
+		for(SimulatedTransition transition : transitions){
+			if(transition.getFrom() == currentMode
+					&& (taken == null || transition.getPriority() > taken.getPriority())
+					&& transition.getGuard().test(null)){
+				taken = transition;
+			}
+		}
+		if(taken != null){
+			currentMode = taken.getTo();
+		}
+	}
+}
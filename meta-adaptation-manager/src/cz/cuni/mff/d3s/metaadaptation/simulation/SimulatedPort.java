@@ -0,0 +1,39 @@
+package cz.cuni.mff.d3s.metaadaptation.simulation;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import cz.cuni.mff.d3s.metaadaptation.componentisolation.Port;
+import cz.cuni.mff.d3s.metaadaptation.correlation.ComponentPort;
+
+/**
+ * A port of a {@link SimulatedComponent} exposing some of its knowledge fields.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class SimulatedPort implements Port, ComponentPort {
+
+	/**
+	 * The labels of the knowledge fields exposed by the port.
+	 */
+	private final Set<String> exposedKnowledge;
+
+	/**
+	 * Create a new instance of {@link SimulatedPort}.
+	 * @param exposedKnowledge The labels of the knowledge fields exposed by the port.
+	 */
+	SimulatedPort(Set<String> exposedKnowledge){
+		this.exposedKnowledge = Collections.unmodifiableSet(new HashSet<>(exposedKnowledge));
+	}
+
+	@Override
+	public Set<String> getExposedKnowledge() {
+		return exposedKnowledge;
+	}
+
+	@Override
+	public String toString() {
+		return exposedKnowledge.toString();
+	}
+}
@@ -0,0 +1,305 @@
+package cz.cuni.mff.d3s.metaadaptation.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import cz.cuni.mff.d3s.metaadaptation.correlation.ConnectorManager;
+import cz.cuni.mff.d3s.metaadaptation.correlation.KnowledgeMetadataRegistry;
+import cz.cuni.mff.d3s.metaadaptation.correlation.metric.DifferenceMetric;
+
+/**
+ * A synthetic system of {@link SimulatedComponent}s that can be adapted by all the
+ * meta-adaptations. The system is advanced in virtual time by the {@link #advance(long)},
+ * each step moves the components, switches theirs modes, takes new samples of theirs
+ * sensors and injects new faults. The system is deterministic for the given seed.
+ * <p>
+ * The components are placed along a line one unit apart and move by a random walk.
+ * The sensors "sensor0" to "sensorN" of each component measure its position multiplied by
+ * 1 to N + 1 with a gaussian noise, so the sensors of the nearby components are correlated.
+ * </p>
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class SimulatedSystem implements ConnectorManager,
+		cz.cuni.mff.d3s.metaadaptation.correlation.ComponentManager,
+		cz.cuni.mff.d3s.metaadaptation.componentisolation.ComponentManager,
+		cz.cuni.mff.d3s.metaadaptation.modeswitch.ComponentManager,
+		cz.cuni.mff.d3s.metaadaptation.modeswitchprops.ComponentManager {
+
+	/**
+	 * The prefix of the labels of the sensors.
+	 */
+	public static final String SENSOR_PREFIX = "sensor";
+
+	/**
+	 * The components of the system.
+	 */
+	private final Set<SimulatedComponent> components;
+	/**
+	 * The types of the components.
+	 */
+	private final List<SimulatedComponentType> types;
+	/**
+	 * The connectors deployed to the system indexed by the knowledge they mediate.
+	 */
+	private final Map<MediatedKnowledge, SimulatedConnector> connectors;
+	/**
+	 * The count of the sensors of each component.
+	 */
+	private final int sensorCount;
+	/**
+	 * The source of the randomness of the system.
+	 */
+	private final Random random;
+	/**
+	 * The standard deviation of the move of a component in a single step.
+	 */
+	private double speed = 0.1;
+	/**
+	 * The standard deviation of the noise of the first sensor.
+	 */
+	private double noise = 0.2;
+	/**
+	 * The maximal delay of a sample after the beginning of the step in milliseconds.
+	 */
+	private int jitter = 0;
+	/**
+	 * The probability that a healthy component gets a faulty sensor in a single step.
+	 */
+	private double faultRate = 0;
+	/**
+	 * The time in milliseconds a faulty sensor takes to be repaired.
+	 */
+	private long faultDuration = 10000;
+	/**
+	 * The count of the faults injected so far.
+	 */
+	private long faultCount = 0;
+	/**
+	 * The time of the last step in milliseconds.
+	 */
+	private long time = Long.MIN_VALUE;
+
+	/**
+	 * Create a new instance of {@link SimulatedSystem}.
+	 * @param componentCount The count of the components.
+	 * @param typeCount The count of the types of the components. The components are assigned
+	 * to the types in turns.
+	 * @param sensorCount The count of the sensors of each component.
+	 * @param modeCount The count of the modes in the mode chart of each component.
+	 * @param transitionCount The count of the transitions in the mode chart of each component.
+	 * @param seed The seed of the randomness of the system.
+	 */
+	public SimulatedSystem(int componentCount, int typeCount, int sensorCount, int modeCount,
+			int transitionCount, long seed){
+		if(componentCount < 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is negative.", "componentCount"));
+		}
+		if(typeCount < 1){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "typeCount"));
+		}
+		if(sensorCount < 1){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "sensorCount"));
+		}
+		if(modeCount < 1){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "modeCount"));
+		}
+		if(transitionCount < 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is negative.", "transitionCount"));
+		}
+
+		this.sensorCount = sensorCount;
+		random = new Random(seed);
+		types = new ArrayList<>(typeCount);
+		for(int i = 0; i < typeCount; i++){
+			types.add(new SimulatedComponentType(i, 0.5));
+		}
+		components = new LinkedHashSet<>();
+		for(int i = 0; i < componentCount; i++){
+			components.add(new SimulatedComponent(i, types.get(i % typeCount),
+					new SimulatedModeChart(modeCount, transitionCount, random), sensorCount));
+		}
+		connectors = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Returns the label of the sensor at the given position.
+	 * @param index The position of the sensor.
+	 * @return The label of the sensor.
+	 */
+	public static String getSensorLabel(int index){
+		return SENSOR_PREFIX + index;
+	}
+
+	/**
+	 * Set the standard deviation of the move of a component in a single step.
+	 * @param speed The standard deviation of the move of a component in a single step.
+	 */
+	public void setSpeed(double speed){
+		if(speed < 0){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is negative.", "speed"));
+		}
+		this.speed = speed;
+	}
+
+	/**
+	 * Set the standard deviation of the noise of the first sensor. The noise of the other
+	 * sensors grows in proportion to theirs gains.
+	 * @param noise The standard deviation of the noise of the first sensor.
+	 */
+	public void setNoise(double noise){
+		if(noise < 0){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is negative.", "noise"));
+		}
+		this.noise = noise;
+	}
+
+	/**
+	 * Set the maximal delay of a sample after the beginning of the step.
+	 * @param jitter The maximal delay of a sample in milliseconds.
+	 */
+	public void setJitter(int jitter){
+		if(jitter < 0){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is negative.", "jitter"));
+		}
+		this.jitter = jitter;
+	}
+
+	/**
+	 * Set the injection of the faults. In each step, a random sensor of each healthy component
+	 * becomes faulty with the given probability and is repaired after the given time.
+	 * @param faultRate The probability that a healthy component gets a faulty sensor in a single step.
+	 * @param faultDuration The time in milliseconds a faulty sensor takes to be repaired.
+	 */
+	public void setFaults(double faultRate, long faultDuration){
+		if(faultRate < 0 || faultRate > 1){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is out of the interval [0,1].", "faultRate"));
+		}
+		if(faultDuration < 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument is negative.", "faultDuration"));
+		}
+		this.faultRate = faultRate;
+		this.faultDuration = faultDuration;
+	}
+
+	/**
+	 * Set the metadata of the sensors of the system into the given registry. The distance
+	 * bound of each sensor covers the noise of the sensor and the move of a component
+	 * in a single step.
+	 * @param metadata The registry to set the metadata into.
+	 * @param confidence The confidence level of the correlation of the sensors.
+	 */
+	public void setMetadata(KnowledgeMetadataRegistry metadata, double confidence){
+		if(metadata == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "metadata"));
+		}
+		for(int i = 0; i < sensorCount; i++){
+			double gain = i + 1;
+			metadata.setBoundAndMetric(getSensorLabel(i), gain * Math.max(3 * noise, speed),
+					new DifferenceMetric(), confidence);
+		}
+	}
+
+	/**
+	 * Advance the system to the given time. The components move, switch theirs modes and
+	 * take new samples of theirs sensors. New faults are injected and the expired faults
+	 * are repaired.
+	 * @param time The time of the step in milliseconds.
+	 */
+	public void advance(long time){
+		if(time <= this.time){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument doesn't follow the previous step.", "time"));
+		}
+		this.time = time;
+
+		double[] utilities = new double[types.size()];
+		int[] counts = new int[types.size()];
+		for(SimulatedComponent component : components){
+			if(!component.isFaulty() && faultRate > 0 && random.nextDouble() < faultRate){
+				component.fail(getSensorLabel(random.nextInt(sensorCount)), time + faultDuration);
+				faultCount++;
+			}
+			component.step(time, sensorCount, speed, noise, jitter, random);
+			int type = component.getType().getId();
+			utilities[type] += component.getUtility();
+			counts[type]++;
+		}
+		for(int i = 0; i < types.size(); i++){
+			types.get(i).setAverageUtility(counts[i] == 0 ? 0 : utilities[i] / counts[i]);
+		}
+	}
+
+	/**
+	 * Returns the time of the last step.
+	 * @return The time of the last step in milliseconds. {@link Long#MIN_VALUE} if the system
+	 * hasn't been advanced yet.
+	 */
+	public long getTime(){
+		return time;
+	}
+
+	/**
+	 * Returns the count of the faults injected so far.
+	 * @return The count of the faults injected so far.
+	 */
+	public long getFaultCount(){
+		return faultCount;
+	}
+
+	/**
+	 * Returns the count of the components with a faulty sensor.
+	 * @return The count of the components with a faulty sensor.
+	 */
+	public int getFaultyComponentCount(){
+		int count = 0;
+		for(SimulatedComponent component : components){
+			if(component.isFaulty()){
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public Set<SimulatedComponent> getComponents() {
+		return Collections.unmodifiableSet(components);
+	}
+
+	@Override
+	public Set<SimulatedConnector> getConnectors() {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(connectors.values()));
+	}
+
+	/**
+	 * Deploy a connector mediating the given knowledge. The connector replaces the one
+	 * previously deployed for the same knowledge. The null filter undeploys the connector.
+	 * @param filter The filter of the members of the connector, or null to undeploy it.
+	 * @param mediatedKnowledge The knowledge mediated by the connector.
+	 * @return The deployed connector, or the undeployed one if the filter is null.
+	 */
+	@Override
+	public SimulatedConnector addConnector(Predicate<Map<String, Object>> filter,
+			MediatedKnowledge mediatedKnowledge) {
+		if(filter == null){
+			return connectors.remove(mediatedKnowledge);
+		}
+		SimulatedConnector connector = new SimulatedConnector(filter, mediatedKnowledge);
+		connectors.put(mediatedKnowledge, connector);
+		return connector;
+	}
+}
@@ -0,0 +1,94 @@
+package cz.cuni.mff.d3s.metaadaptation.simulation;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A transition between two modes of a {@link SimulatedModeChart}. The transition
+ * is taken if its guard holds and no other transition from the same mode with
+ * a higher priority is taken.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class SimulatedTransition implements cz.cuni.mff.d3s.metaadaptation.modeswitch.Transition,
+		cz.cuni.mff.d3s.metaadaptation.modeswitchprops.Transition {
+
+	/**
+	 * The mode the transition leads from.
+	 */
+	private final SimulatedMode from;
+	/**
+	 * The mode the transition leads to.
+	 */
+	private final SimulatedMode to;
+	/**
+	 * The guard of the transition.
+	 */
+	private final Predicate<Void> guard;
+	/**
+	 * The parameters of the guard.
+	 */
+	private final Map<String, Double> guardParams;
+	/**
+	 * The priority of the transition.
+	 */
+	private int priority;
+
+	/**
+	 * Create a new instance of {@link SimulatedTransition}.
+	 * @param from The mode the transition leads from.
+	 * @param to The mode the transition leads to.
+	 * @param guard The guard of the transition.
+	 * @param guardParams The parameters of the guard. The map is shared with the guard,
+	 * so the guard reads the parameters set by the {@link #setGuardParam(String, double)}.
+	 * @param priority The priority of the transition.
+	 */
+	SimulatedTransition(SimulatedMode from, SimulatedMode to, Predicate<Void> guard,
+			Map<String, Double> guardParams, int priority){
+		this.from = from;
+		this.to = to;
+		this.guard = guard;
+		this.guardParams = guardParams;
+		this.priority = priority;
+	}
+
+	@Override
+	public SimulatedMode getFrom() {
+		return from;
+	}
+
+	@Override
+	public SimulatedMode getTo() {
+		return to;
+	}
+
+	@Override
+	public int getPriority() {
+		return priority;
+	}
+
+	@Override
+	public void setPriority(int priority) {
+		this.priority = priority;
+	}
+
+	@Override
+	public Predicate<Void> getGuard() {
+		return guard;
+	}
+
+	@Override
+	public Map<String, Double> getGuardParams() {
+		return guardParams;
+	}
+
+	@Override
+	public void setGuardParam(String name, double value) {
+		guardParams.put(name, value);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s -> %s", from, to);
+	}
+}
@@ -0,0 +1,188 @@
+package cz.cuni.mff.d3s.metaadaptation.simulation;
+
+import javax.management.JMException;
+
+import cz.cuni.mff.d3s.metaadaptation.MetaAdaptationManager;
+import cz.cuni.mff.d3s.metaadaptation.componentisolation.ComponentIsolationManager;
+import cz.cuni.mff.d3s.metaadaptation.correlation.CorrelationManager;
+import cz.cuni.mff.d3s.metaadaptation.correlation.KnowledgeMetadataRegistry;
+import cz.cuni.mff.d3s.metaadaptation.instrumentation.AdaptationSnapshot;
+import cz.cuni.mff.d3s.metaadaptation.instrumentation.MAPEInstrumentation;
+import cz.cuni.mff.d3s.metaadaptation.modeswitch.NonDeterministicModeSwitchingManager;
+import cz.cuni.mff.d3s.metaadaptation.modeswitchprops.ModeSwitchPropsManager;
+
+/**
+ * Drives the {@link MetaAdaptationManager} over a {@link SimulatedSystem} in virtual time.
+ * Each step advances the system by a fixed period and runs the
+ * {@link MetaAdaptationManager#reason()} once. No step waits for the real time to pass,
+ * so the simulation runs as fast as the adaptations allow.
+ *
+ * @author Dominik Skoda <skoda@d3s.mff.cuni.cz>
+ */
+public class Simulation {
+
+	/**
+	 * The largest count of the components for which the correlation plans exactly.
+	 * The exact planning grows with the square of the count of the components.
+	 */
+	public static final int EXACT_PLANNING_LIMIT = 100;
+
+	/**
+	 * The simulated system.
+	 */
+	private final SimulatedSystem system;
+	/**
+	 * The manager adapting the system.
+	 */
+	private final MetaAdaptationManager manager;
+	/**
+	 * The virtual time between two steps in milliseconds.
+	 */
+	private final long period;
+	/**
+	 * The virtual time of the last step in milliseconds.
+	 */
+	private long time;
+	/**
+	 * The count of the steps simulated so far.
+	 */
+	private long stepCount;
+
+	/**
+	 * Create a new instance of {@link Simulation} starting at the time 0.
+	 * @param system The simulated system.
+	 * @param manager The manager adapting the system.
+	 * @param period The virtual time between two steps in milliseconds.
+	 */
+	public Simulation(SimulatedSystem system, MetaAdaptationManager manager, long period){
+		if(system == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "system"));
+		}
+		if(manager == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "manager"));
+		}
+		if(period <= 0){
+			throw new IllegalArgumentException(String.format(
+					"The \"%s\" argument has to be positive.", "period"));
+		}
+
+		this.system = system;
+		this.manager = manager;
+		this.period = period;
+		time = 0;
+		stepCount = 0;
+	}
+
+	/**
+	 * Creates the manager with all the meta-adaptations applied to the given system.
+	 * The correlation uses the metadata of the sensors set by the
+	 * {@link SimulatedSystem#setMetadata(KnowledgeMetadataRegistry, double)}. For more than
+	 * {@link #EXACT_PLANNING_LIMIT} components the correlation uses the approximate and lazy
+	 * planning, the prefetching runs synchronously to keep the simulation deterministic.
+	 * @param system The system to be adapted.
+	 * @param metadata The metadata of the sensors of the system.
+	 * @return The manager with all the meta-adaptations applied to the system.
+	 */
+	public static MetaAdaptationManager createManager(SimulatedSystem system, KnowledgeMetadataRegistry metadata){
+		if(system == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "system"));
+		}
+		if(metadata == null){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is null.", "metadata"));
+		}
+
+		MetaAdaptationManager manager = new MetaAdaptationManager();
+		manager.addAdaptation(new ComponentIsolationManager(system));
+		CorrelationManager correlationManager = new CorrelationManager(system, system, metadata);
+		if(system.getComponents().size() > EXACT_PLANNING_LIMIT){
+			correlationManager.setApproximatePlanning(true);
+			correlationManager.setLazyPlanning(true);
+			correlationManager.setPrefetchExecutor(null);
+		}
+		manager.addAdaptation(correlationManager);
+		manager.addAdaptation(new NonDeterministicModeSwitchingManager(system, null));
+		manager.addAdaptation(new ModeSwitchPropsManager(system));
+		return manager;
+	}
+
+	/**
+	 * Advance the system by a single period and let the manager reason about it.
+	 */
+	public void step(){
+		time += period;
+		system.advance(time);
+		manager.reason();
+		stepCount++;
+	}
+
+	/**
+	 * Simulate the given span of the virtual time.
+	 * @param duration The span of the virtual time in milliseconds.
+	 */
+	public void run(long duration){
+		if(duration < 0){
+			throw new IllegalArgumentException(String.format("The \"%s\" argument is negative.", "duration"));
+		}
+		long end = time + duration;
+		while(time + period <= end){
+			step();
+		}
+	}
+
+	/**
+	 * Returns the virtual time of the last step.
+	 * @return The virtual time of the last step in milliseconds.
+	 */
+	public long getTime(){
+		return time;
+	}
+
+	/**
+	 * Returns the count of the steps simulated so far.
+	 * @return The count of the steps simulated so far.
+	 */
+	public long getStepCount(){
+		return stepCount;
+	}
+
+	/**
+	 * Runs the simulation of all the meta-adaptations and reports how much faster
+	 * than the real time it runs and how the time is spent among the phases of the adaptations.
+	 * The statistics of the adaptations are available through the JMX while the simulation
+	 * runs. The arguments are the count of the components (1000 by default), the simulated
+	 * time in seconds (60 by default), the fault rate per component and step (0.001 by default)
+	 * and the seed (42 by default).
+	 * @param args The count of the components, the simulated time, the fault rate and the seed.
+	 * @throws JMException If the statistics can't be registered to the JMX.
+	 */
+	public static void main(String[] args) throws JMException {
+		int componentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		long duration = 1000 * (args.length > 1 ? Long.parseLong(args[1]) : 60);
+		double faultRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.001;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+		SimulatedSystem system = new SimulatedSystem(componentCount, 4, 3, 4, 6, seed);
+		system.setFaults(faultRate, 10 * CorrelationManager.DEFAULT_TIME_SLOT_DURATION);
+		KnowledgeMetadataRegistry metadata = new KnowledgeMetadataRegistry();
+		system.setMetadata(metadata, 0.8);
+		MetaAdaptationManager manager = createManager(system, metadata);
+		MAPEInstrumentation instrumentation = new MAPEInstrumentation();
+		instrumentation.registerMBeans();
+		manager.setInstrumentation(instrumentation);
+		Simulation simulation = new Simulation(system, manager, CorrelationManager.DEFAULT_TIME_SLOT_DURATION);
+
+		long start = System.nanoTime();
+		simulation.run(duration);
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		System.out.println(String.format("Simulated %d components for %d s in %d steps.",
+				componentCount, simulation.getTime() / 1000, simulation.getStepCount()));
+		System.out.println(String.format("Elapsed %.3f s, %.1fx faster than the real time.",
+				elapsed, simulation.getTime() / 1000.0 / elapsed));
+		System.out.println(String.format("Injected faults: %d, faulty components: %d, deployed connectors: %d.",
+				system.getFaultCount(), system.getFaultyComponentCount(), system.getConnectors().size()));
+		for(AdaptationSnapshot adaptation : instrumentation.getSnapshot()){
+			System.out.print(adaptation);
+		}
+	}
+}